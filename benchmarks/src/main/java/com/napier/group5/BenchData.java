@@ -0,0 +1,95 @@
+package com.napier.group5;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Shared setup for the benchmarks: synthetic city-like rows and a character-counting report sink.
+ */
+final class BenchData {
+
+    /**
+     * Column headers of the synthetic rows (shaped like the city reports).
+     */
+    static final String[] HEADERS = {"Name", "Country", "District", "Population"};
+
+    /**
+     * Alignment matching the headers: only Population is numeric.
+     */
+    static final boolean[] RIGHT = {false, false, false, true};
+
+    private BenchData() {
+    }
+
+    /**
+     * Selects ASCII or Unicode borders. Must run before {@link App} is first used,
+     * which JMH guarantees as every parameter combination gets a fresh fork.
+     *
+     * @param borders "ascii" or "unicode"
+     */
+    static void useBorders(String borders) {
+        System.setProperty("table.ascii", "ascii".equals(borders) ? "1" : "0");
+    }
+
+    /**
+     * Builds {@code n} rows of formatted cells with realistic lengths, from a fixed seed.
+     *
+     * @param n Number of rows
+     * @return the rows
+     */
+    static List<String[]> rows(int n) {
+        SplittableRandom rnd = new SplittableRandom(42);
+        List<String[]> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(new String[]{
+                    word(rnd, 4, 20),
+                    word(rnd, 4, 30),
+                    word(rnd, 3, 20),
+                    Long.toString(rnd.nextLong(1_000, 10_500_000))
+            });
+        }
+        return rows;
+    }
+
+    private static String word(SplittableRandom rnd, int min, int max) {
+        char[] c = new char[rnd.nextInt(min, max + 1)];
+        c[0] = (char) ('A' + rnd.nextInt(26));
+        for (int i = 1; i < c.length; i++) {
+            c[i] = (char) ('a' + rnd.nextInt(26));
+        }
+        return new String(c);
+    }
+
+    /**
+     * Points {@link App#sink} at a sink that only counts characters, so the benchmarks
+     * measure building the lines, not writing them to a terminal.
+     *
+     * @return the installed sink
+     */
+    static Sink installSink() {
+        Sink sink = new Sink();
+        App.sink = sink;
+        return sink;
+    }
+
+    /**
+     * Report sink that keeps a running character count of every line.
+     */
+    static final class Sink implements ReportSink {
+        long chars;
+
+        @Override
+        public void line(String line) {
+            chars += line.length() + 1;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
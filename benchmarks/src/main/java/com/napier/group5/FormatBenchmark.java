@@ -0,0 +1,86 @@
+package com.napier.group5;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.NumberFormat;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning numeric values into cells: with {@link CellFormatter} (what the
+ * query runner uses) and with the NumberFormat instances it replaced
+ * ({@link App#integerFormat()} for integer columns, {@link App#decimalFormat()} for decimals).
+ *
+ * One operation formats one row shaped like the population reports: an integer
+ * population and two percentages. Run with {@code -prof gc} for bytes per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FormatBenchmark {
+
+    @Param({"10", "10000", "1000000"})
+    int rows;
+
+    private long[] population;
+    private double[] percent;
+    private NumberFormat intFmt;
+    private NumberFormat decFmt;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        population = new long[rows];
+        percent = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            population[i] = rnd.nextLong(0, 1_300_000_000L);
+            percent[i] = Math.round(rnd.nextDouble(0, 100) * 100) / 100.0;
+        }
+        // One instance per query, as fetchTable used to create them
+        intFmt = App.integerFormat();
+        decFmt = App.decimalFormat();
+    }
+
+    /**
+     * Formats one row's numeric cells with {@link CellFormatter}.
+     */
+    @Benchmark
+    public String[] cellFormatter() {
+        int i = next;
+        next = next + 1 == rows ? 0 : next + 1;
+        return new String[]{
+                CellFormatter.formatLong(population[i]),
+                CellFormatter.formatDecimal(percent[i]),
+                CellFormatter.formatDecimal(100 - percent[i])
+        };
+    }
+
+    /**
+     * Formats one row's numeric cells with NumberFormat.
+     */
+    @Benchmark
+    public String[] numberFormat() {
+        int i = next;
+        next = next + 1 == rows ? 0 : next + 1;
+        return new String[]{
+                intFmt.format(population[i]),
+                decFmt.format(percent[i]),
+                decFmt.format(100 - percent[i])
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.napier.group5;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the table renderer: {@link App#printTable} (into a counting {@link ReportSink}),
+ * {@link App#row} and {@link App#line}.
+ *
+ * printTable is measured per whole table; row and line per call, i.e. per rendered row.
+ * Run with {@code -prof gc} for allocations: gc.alloc.rate.norm is bytes per operation,
+ * so for printTable divide it by {@code rows} to get bytes per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RenderBenchmark {
+
+    @Param({"10", "10000", "1000000"})
+    int rows;
+
+    @Param({"ascii", "unicode"})
+    String borders;
+
+    private List<String[]> data;
+    private int[] widths;
+    private BenchData.Sink sink;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchData.useBorders(borders);
+        sink = BenchData.installSink();
+        data = BenchData.rows(rows);
+
+        // Same width rule as printTable
+        widths = new int[BenchData.HEADERS.length];
+        for (int c = 0; c < widths.length; c++) {
+            widths[c] = BenchData.HEADERS[c].length();
+            for (String[] r : data) {
+                widths[c] = Math.max(widths[c], r[c].length());
+            }
+        }
+    }
+
+    /**
+     * Whole table: widths, borders, header and every row, into the counting sink.
+     */
+    @Benchmark
+    public long printTable() {
+        App.printTable("Benchmark", BenchData.HEADERS, data, BenchData.RIGHT);
+        return sink.chars;
+    }
+
+    /**
+     * One data row (cycling through the row set).
+     */
+    @Benchmark
+    public String row() {
+        String[] r = data.get(next);
+        next = next + 1 == rows ? 0 : next + 1;
+        return App.row(r, widths, BenchData.RIGHT);
+    }
+
+    /**
+     * One separator line between rows.
+     */
+    @Benchmark
+    public String line() {
+        return App.line(App.B.LT, App.B.X, App.B.RT, widths);
+    }
+}
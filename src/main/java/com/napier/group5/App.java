@@ -1,9 +1,13 @@
 package com.napier.group5;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.text.NumberFormat;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -72,7 +76,7 @@ public class App {
      * @param def Default value to use if not set or blank
      * @return The environment value or the default
      */
-    private static String env(String key, String def) {
+    static String env(String key, String def) {
         String v = System.getenv(key);
         return (v == null || v.isBlank()) ? def : v;
     }
@@ -82,19 +86,29 @@ public class App {
     // -------------------------------------------------------------------------
 
     /**
-     * Attempts to connect to the database multiple times with a delay between tries.
+     * First delay between connection attempts; it doubles after every failure.
+     */
+    private static final long INITIAL_BACKOFF_MS = 100;
+
+    /**
+     * Attempts to connect to the database multiple times, waiting longer after each failure.
      * This is useful when MySQL in Docker might not be ready the instant the app starts.
      *
+     * The delay starts at 100 ms and doubles after each failed attempt (exponential backoff),
+     * capped at {@code wait}. Each delay is randomised between half and all of its value
+     * (jitter) so that several clients starting together do not retry in lock-step.
+     * There is no delay after the last attempt.
+     *
      * @param url      JDBC URL (jdbc:mysql://host:port/db)
      * @param user     DB username
      * @param pass     DB password
      * @param attempts Number of times to try
-     * @param wait     Delay between attempts
+     * @param wait     Upper bound on the delay between attempts
      * @return a live {@link Connection} if successful
-     * @throws Exception last SQLException if all attempts fail
+     * @throws SQLException last SQLException if all attempts fail
      */
     static Connection connectWithRetry(String url, String user, String pass,
-                                       int attempts, Duration wait) throws Exception {
+                                       int attempts, Duration wait) throws SQLException {
 
         // Special case for unit tests – if URL starts with this prefix, we deliberately fail.
         if (url.startsWith("test://fail")) {
@@ -102,6 +116,7 @@ public class App {
         }
 
         SQLException last = null;
+        long backoff = Math.min(INITIAL_BACKOFF_MS, wait.toMillis());
 
         // Try up to "attempts" times
         for (int i = 1; i <= attempts; i++) {
@@ -123,12 +138,24 @@ public class App {
                     log.warning(() -> "Not ready yet: " + e.getMessage());
                 }
 
-                // Wait before trying again
-                Thread.sleep(wait.toMillis());
+                // Wait before trying again: random delay in [backoff/2, backoff], then double it
+                if (i < attempts) {
+                    long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting to reconnect", ie);
+                    }
+                    backoff = Math.min(backoff * 2, wait.toMillis());
+                }
             }
         }
 
         // If we get here, all attempts failed, so throw the last exception
+        if (last == null) {
+            throw new SQLException("No connection attempts made (attempts=" + attempts + ")");
+        }
         throw last;
     }
 
@@ -139,14 +166,17 @@ public class App {
     /**
      * If environment variable TABLE_ASCII is "0", then use Unicode borders.
      * For any other value (or not set) we use ASCII borders.
+     * The system property table.ascii, when set, takes precedence (used by the benchmarks,
+     * which cannot change the environment of their forked JVMs).
      */
-    private static final boolean ASCII = !"0".equals(System.getenv("TABLE_ASCII"));
+    private static final boolean ASCII =
+            !"0".equals(System.getProperty("table.ascii", System.getenv("TABLE_ASCII")));
 
     /**
      * Small helper class that stores which characters to use for drawing the table borders.
      * It supports either simple ASCII (+, -, |) or nicer Unicode box drawing characters.
      */
-    private static class Borders {
+    static class Borders {
         final String TL, TR, BL, BR; // top-left, top-right, bottom-left, bottom-right corners
         final String H, V;           // horizontal, vertical
         final String TJ, X, BJ;      // top-join, cross, bottom-join
@@ -172,25 +202,61 @@ public class App {
     /**
      * Global Borders instance, chosen once based on the TABLE_ASCII environment variable.
      */
-    private static final Borders B = new Borders(ASCII);
+    static final Borders B = new Borders(ASCII);
 
     // -------------------------------------------------------------------------
     // Table rendering helpers: printTable / line / row
     // -------------------------------------------------------------------------
 
     /**
-     * Prints a formatted table (with borders) to the logger.
+     * Where tables and section banners are written. Standard output by default;
+     * main() can point it at a file or back at the logger (REPORT_OUTPUT).
+     */
+    static volatile ReportSink sink = ReportSink.stdout(ReportSink.DEFAULT_BUFFER);
+
+    /**
+     * Prints a formatted table (with borders) to the report sink, then flushes it.
      *
      * @param title      Title of report (printed as a line before the table)
      * @param headers    Column headers
      * @param rows       List of data rows, each row is a String[] of cell values
      * @param rightAlign For each column, whether numbers should be right-aligned
      */
-    private static void printTable(String title, String[] headers, List<String[]> rows, boolean[] rightAlign) {
-        if (log.isLoggable(Level.INFO)) {
-            // Print title as separate line
-            log.info(() -> "\n" + title);
+    static void printTable(String title, String[] headers, List<String[]> rows, boolean[] rightAlign) {
+        printTable(sink, title, headers, rows, rightAlign);
+    }
+
+    /**
+     * Same as {@link #printTable(String, String[], List, boolean[])}, written to {@code out}
+     * instead of the report sink (e.g. to render a table for an HTTP response).
+     *
+     * @param out        Where to write the table; flushed at the end
+     * @param title      Title of report (printed as a line before the table)
+     * @param headers    Column headers
+     * @param rows       List of data rows, each row is a String[] of cell values
+     * @param rightAlign For each column, whether numbers should be right-aligned
+     */
+    static void printTable(ReportSink out, String title, String[] headers, List<String[]> rows,
+                           boolean[] rightAlign) {
+        Metrics m = metrics;
+        if (m != null) {
+            Metrics.TimedSink timed = new Metrics.TimedSink(out);
+            render(timed, title, headers, rows, rightAlign);
+            m.record(title, Metrics.Phase.PRINT, timed.nanos());
+            m.bytes(title, timed.chars());
+        } else {
+            render(out, title, headers, rows, rightAlign);
         }
+    }
+
+    /**
+     * Writes a table to {@code out}; the body of printTable.
+     */
+    private static void render(ReportSink out, String title, String[] headers, List<String[]> rows,
+                               boolean[] rightAlign) {
+        // Print title as separate line, after a blank one
+        out.line("");
+        out.line(title);
 
         // Number of columns
         int cols = headers.length;
@@ -216,27 +282,52 @@ public class App {
         String mid = line(B.LT, B.X , B.RT, w);
         String bot = line(B.BL, B.BJ, B.BR, w);
 
-        if (log.isLoggable(Level.INFO)) {
-            // Top border
-            log.info(() -> top);
-            // Header row (headers are always left aligned here)
-            log.info(() -> row(headers, w, new boolean[cols]));
-            // Header separator
-            log.info(() -> mid);
-
-            // Print each data row
-            for (int r = 0; r < rows.size(); r++) {
-                int rowIndex = r;
-                log.info(() -> row(rows.get(rowIndex), w, rightAlign));
-                // After each row, print mid or bottom border
-                log.info(() -> rowIndex == rows.size() - 1 ? bot : mid);
-            }
+        // Top border, header row, header separator
+        printHeader(out, top, headers, w, mid);
 
-            // If there are no data rows, still close the table
-            if (rows.isEmpty()) {
-                log.info(() -> bot);
-            }
+        // Print each data row
+        for (int r = 0; r < rows.size(); r++) {
+            out.line(row(rows.get(r), w, rightAlign));
+            // After each row, print mid or bottom border
+            out.line(r == rows.size() - 1 ? bot : mid);
         }
+
+        // If there are no data rows, still close the table
+        if (rows.isEmpty()) {
+            out.line(bot);
+        }
+        out.flush();
+    }
+
+    /**
+     * Prints the top border, the header row (always left aligned) and the header separator.
+     */
+    private static void printHeader(ReportSink out, String top, String[] headers, int[] w, String mid) {
+        out.line(top);
+        out.line(row(headers, w, new boolean[headers.length]));
+        out.line(mid);
+    }
+
+    /**
+     * Prints an already fetched report.
+     *
+     * @param table Report to print
+     */
+    static void printTable(ReportTable table) {
+        printTable(table.title(), table.headers(), table.rows(), table.rightAlign());
+    }
+
+    /**
+     * Prints a section banner (e.g. "Country Reports") between groups of reports.
+     *
+     * @param name Section heading
+     */
+    static void printSection(String name) {
+        ReportSink out = sink;
+        out.line("");
+        out.line("======================");
+        out.line(name);
+        out.line("======================");
     }
 
     /**
@@ -244,7 +335,7 @@ public class App {
      *
      * Example: ┌─────┬────────┐
      */
-    private static String line(String left, String join, String right, int[] w) {
+    static String line(String left, String join, String right, int[] w) {
         StringBuilder sb = new StringBuilder(left);
         for (int i = 0; i < w.length; i++) {
             // Add "width + 2" dashes (1 space padding on each side of cell)
@@ -263,11 +354,12 @@ public class App {
      * @param rightAlign For each column, whether to right align
      * @return a String representing the table row (e.g. │  London │ 12345 │)
      */
-    private static String row(String[] cells, int[] w, boolean[] rightAlign) {
+    static String row(String[] cells, int[] w, boolean[] rightAlign) {
         StringBuilder sb = new StringBuilder(B.V);
         for (int i = 0; i < w.length; i++) {
             String cell = cells[i] == null ? "" : cells[i];
-            int pad = w[i] - cell.length();
+            // Never negative: a streamed cell may be wider than its column
+            int pad = Math.max(0, w[i] - cell.length());
 
             if (rightAlign != null && rightAlign[i]) {
                 // Right align: spaces on the left
@@ -305,89 +397,403 @@ public class App {
      * @throws SQLException if the query fails
      */
     static void runQuery(Connection con, String title, String sql, String... cols) throws SQLException {
-        // PreparedStatement used here even though there are no parameters,
-        // so that it is safe to extend later if needed.
-        try (PreparedStatement ps = con.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        printTable(fetchTable(con, title, sql, cols));
+    }
 
-            ResultSetMetaData md = rs.getMetaData();
+    /**
+     * Optional result cache consulted by {@link #fetchTable}; null means every call queries the DB.
+     * Set once in main() when REPORT_CACHE=1.
+     */
+    static volatile ResultCache resultCache;
 
-            // Map each column label -> index (1-based in JDBC)
-            Map<String, Integer> idx = new HashMap<>();
-            for (int i = 1; i <= md.getColumnCount(); i++) {
-                idx.put(md.getColumnLabel(i), i);
-            }
+    /**
+     * Optional per-report phase timings; null means nothing is measured.
+     * Set once in main() when REPORT_METRICS=1.
+     */
+    static volatile Metrics metrics;
 
-            // --- Number formatting: NO grouping (no commas), up to 2 decimals ---
+    /**
+     * How query results are fetched (buffered, cursor or streamed), set from REPORT_FETCH.
+     */
+    static volatile FetchMode.Policy fetchPolicy = FetchMode.Policy.DEFAULT;
 
-            // For integer-like columns
-            NumberFormat intFmt = NumberFormat.getIntegerInstance(Locale.US);
-            intFmt.setGroupingUsed(false);
+    /**
+     * Borrows a connection, recording the wait as the CONNECT phase of {@code label}
+     * when metrics are on.
+     *
+     * @param pool  Connection pool
+     * @param label Report title, or {@link Metrics#RUN} for a connection shared by a run
+     * @return a pooled connection; close it to give it back
+     * @throws SQLException if no connection can be obtained
+     */
+    static Connection acquire(ConnectionPool pool, String label) throws SQLException {
+        Metrics m = metrics;
+        if (m == null) {
+            return pool.acquire();
+        }
+        long start = System.nanoTime();
+        Connection con = pool.acquire();
+        m.record(label, Metrics.Phase.CONNECT, System.nanoTime() - start);
+        return con;
+    }
 
-            // For decimal-like columns
-            NumberFormat decFmt = NumberFormat.getNumberInstance(Locale.US);
-            decFmt.setGroupingUsed(false);
-            decFmt.setMinimumFractionDigits(0);
-            decFmt.setMaximumFractionDigits(2);
+    /**
+     * Prints the phase timings summary to {@code out} when metrics are on, without
+     * timing the summary itself, and writes them as JSON to REPORT_METRICS_JSON if set.
+     *
+     * @param out Sink the suite's tables went to
+     * @throws IOException if the JSON file cannot be written
+     */
+    private static void printMetrics(ReportSink out) throws IOException {
+        Metrics m = metrics;
+        if (m == null) {
+            return;
+        }
+        ReportTable summary = m.summary();
+        render(out, summary.title(), summary.headers(), summary.rows(), summary.rightAlign());
+        String json = env("REPORT_METRICS_JSON", "");
+        if (!json.isEmpty()) {
+            Files.writeString(Path.of(json), m.toJson());
+        }
+    }
 
-            // For each requested column, decide if it should be right-aligned and if it is decimal.
-            boolean[] right = new boolean[cols.length];
-            boolean[] isDecimal = new boolean[cols.length];
+    /**
+     * Runs a SELECT query and collects all rows as formatted cells, without printing anything.
+     * Numeric columns are detected from the result set metadata and formatted without commas,
+     * with up to 2 decimal places for decimals.
+     * When a {@link ResultCache} is configured, a cached copy is returned if one is still valid.
+     *
+     * @param con   Open JDBC connection
+     * @param title Title for this report
+     * @param sql   SQL text (can be a Java text block)
+     * @param cols  Column labels to display and fetch
+     * @return the fetched report, ready for {@link #printTable(ReportTable)}
+     * @throws SQLException if the query fails
+     */
+    static ReportTable fetchTable(Connection con, String title, String sql, String... cols) throws SQLException {
+        return fetchTable(con, title, sql, List.of(), cols);
+    }
 
-            for (int i = 0; i < cols.length; i++) {
-                int jdbcType = Types.VARCHAR; // default type if not found
-                Integer pos = idx.get(cols[i]);
-                if (pos != null) {
-                    jdbcType = md.getColumnType(pos);
-                }
+    /**
+     * Same as {@link #fetchTable(Connection, String, String, String...)}, for SQL with
+     * {@code ?} placeholders. The parameters are bound in order and are part of the cache key.
+     *
+     * @param con    Open JDBC connection
+     * @param title  Title for this report
+     * @param sql    SQL text with one {@code ?} per parameter
+     * @param params Values for the placeholders, in order
+     * @param cols   Column labels to display and fetch
+     * @return the fetched report, ready for {@link #printTable(ReportTable)}
+     * @throws SQLException if the query fails
+     */
+    static ReportTable fetchTable(Connection con, String title, String sql, List<Object> params, String... cols)
+            throws SQLException {
+        FetchMode.Policy policy = fetchPolicy;
+        return fetchTable(con, title, sql, params, policy.fixed() != null ? policy.fixed() : FetchMode.BUFFERED, cols);
+    }
 
-                // Switch over JDBC types to decide formatting
-                switch (jdbcType) {
-                    case Types.INTEGER, Types.BIGINT, Types.SMALLINT, Types.TINYINT -> {
-                        right[i] = true;
-                        isDecimal[i] = false;
-                    }
-                    case Types.DECIMAL, Types.NUMERIC, Types.FLOAT, Types.REAL, Types.DOUBLE -> {
-                        right[i] = true;
-                        isDecimal[i] = true;
-                    }
-                    default -> {
-                        right[i] = false;
-                        isDecimal[i] = false;
-                    }
+    /**
+     * Fetches a catalog report, with the fetch mode chosen from its expected size
+     * (see {@link FetchMode.Policy#choose}).
+     *
+     * @param con Open JDBC connection
+     * @param r   Report
+     * @return the fetched report, ready for {@link #printTable(ReportTable)}
+     * @throws SQLException if the query fails
+     */
+    static ReportTable fetchTable(Connection con, Report r) throws SQLException {
+        return fetchTable(con, r.title(), r.sql(), r.binds(), fetchPolicy.choose(r), r.cols());
+    }
+
+    private static ReportTable fetchTable(Connection con, String title, String sql, List<Object> params,
+                                          FetchMode mode, String... cols) throws SQLException {
+        ResultCache cache = resultCache;
+        if (cache != null) {
+            return cache.get(ResultCache.key(sql, params, cols), title,
+                    () -> queryTable(con, title, sql, params, mode, cols));
+        }
+        return queryTable(con, title, sql, params, mode, cols);
+    }
+
+    /**
+     * Runs the query behind {@link #fetchTable}, bypassing the result cache.
+     */
+    private static ReportTable queryTable(Connection con, String title, String sql, List<Object> params,
+                                          FetchMode mode, String... cols) throws SQLException {
+        // With useServerPrepStmts/cachePrepStmts on the URL, the driver keeps this
+        // statement prepared on the server and reuses it for the next call with the same SQL.
+        Metrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            fetchPolicy.apply(ps, mode);
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (m != null) {
+                    m.record(title, Metrics.Phase.EXECUTE, System.nanoTime() - start);
                 }
+                return readTable(rs, title, sql, cols);
             }
+        }
+    }
+
+    /**
+     * Reads every remaining row of a result set as formatted cells.
+     * Columns are read by position through the report's cached {@link ColumnPlan}.
+     * The result set is left open; closing it is up to the caller.
+     *
+     * @param rs    Result set positioned before its first row
+     * @param title Title for this report
+     * @param sql   SQL text the result came from (identifies the cached column plan)
+     * @param cols  Column labels to display and fetch
+     * @return the report
+     * @throws SQLException if reading fails
+     */
+    static ReportTable readTable(ResultSet rs, String title, String sql, String... cols) throws SQLException {
+        ColumnPlan plan = ColumnPlan.of(sql, rs.getMetaData(), cols);
 
-            // Collect all rows as list of String[]
-            List<String[]> rows = new ArrayList<>();
+        // Collect all rows as list of String[]
+        List<String[]> rows = new ArrayList<>();
 
+        Metrics m = metrics;
+        if (m == null) {
             while (rs.next()) {
-                String[] r = new String[cols.length];
+                rows.add(plan.format(rs));
+            }
+        } else {
+            // Same loop, with the time in next() and in formatting summed separately
+            long fetch = 0;
+            long[] format = {0};
+            long t = System.nanoTime();
+            while (rs.next()) {
+                fetch += System.nanoTime() - t;
+                rows.add(format(plan, rs, format));
+                t = System.nanoTime();
+            }
+            fetch += System.nanoTime() - t;
+            m.record(title, Metrics.Phase.FETCH, fetch);
+            m.record(title, Metrics.Phase.FORMAT, format[0]);
+            m.rows(title, rows.size());
+        }
+
+        return new ReportTable(title, cols, rows, plan.rightAlign());
+    }
 
+    /**
+     * Formats the current row, adding the time taken to {@code nanos[0]} if {@code nanos} is not null.
+     */
+    private static String[] format(ColumnPlan plan, ResultSet rs, long[] nanos) throws SQLException {
+        if (nanos == null) {
+            return plan.format(rs);
+        }
+        long start = System.nanoTime();
+        String[] r = plan.format(rs);
+        nanos[0] += System.nanoTime() - start;
+        return r;
+    }
+
+    /**
+     * Binds positional parameters to a prepared statement.
+     *
+     * @param ps     Prepared statement
+     * @param params Values for the {@code ?} placeholders, in order
+     * @throws SQLException if a value cannot be bound
+     */
+    static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Streaming query runner – prints rows as they arrive
+    // -------------------------------------------------------------------------
+
+    /**
+     * Number of leading rows buffered by {@link #streamQuery} to choose column widths.
+     */
+    static final int STREAM_SAMPLE_ROWS = 256;
+
+    /**
+     * Columns whose declared display size is at most this wide are always given their
+     * full display size when streaming, so no value can overflow them.
+     */
+    static final int STREAM_MAX_DECLARED_WIDTH = 40;
+
+    /**
+     * Like {@link #runQuery}, but prints each row as soon as it is fetched instead of
+     * collecting the whole result first, so memory stays constant however many rows
+     * the query returns.
+     *
+     * The driver is asked to stream rows (forward-only, read-only, fetch size
+     * Integer.MIN_VALUE for MySQL Connector/J). Column widths are chosen from the
+     * first {@link #STREAM_SAMPLE_ROWS} rows:
+     *  - if the whole result fits in the sample, the table is identical to runQuery's;
+     *  - otherwise each column is also widened to its declared display size when that
+     *    is reasonably small. A later value longer than its column just pushes the
+     *    border out on that one row.
+     *
+     * While the result set is open, the connection cannot run any other statement.
+     *
+     * @param con   Open JDBC connection
+     * @param title Title for this report
+     * @param sql   SQL text (can be a Java text block)
+     * @param cols  Column labels to display and fetch
+     * @return number of data rows printed
+     * @throws SQLException if the query fails
+     */
+    static long streamQuery(Connection con, String title, String sql, String... cols) throws SQLException {
+        return streamQuery(con, title, sql, List.of(), cols);
+    }
+
+    /**
+     * Same as {@link #streamQuery(Connection, String, String, String...)}, for SQL with
+     * {@code ?} placeholders.
+     *
+     * @param con    Open JDBC connection
+     * @param title  Title for this report
+     * @param sql    SQL text with one {@code ?} per parameter
+     * @param params Values for the placeholders, in order
+     * @param cols   Column labels to display and fetch
+     * @return number of data rows printed
+     * @throws SQLException if the query fails
+     */
+    static long streamQuery(Connection con, String title, String sql, List<Object> params, String... cols)
+            throws SQLException {
+        return streamQuery(con, title, sql, params, FetchMode.STREAM, cols);
+    }
+
+    /**
+     * Prints a catalog report row by row, reading it with {@code mode}: STREAM reads
+     * rows off the socket, CURSOR a server-side cursor {@code fetchSize} rows at a time.
+     * Either way only the width sample is held in memory. The result cache is bypassed.
+     *
+     * @param con  Open JDBC connection
+     * @param r    Report
+     * @param mode STREAM or CURSOR
+     * @return number of data rows printed
+     * @throws SQLException if the query fails
+     */
+    static long streamQuery(Connection con, Report r, FetchMode mode) throws SQLException {
+        return streamQuery(con, r.title(), r.sql(), r.binds(), mode, r.cols());
+    }
+
+    private static long streamQuery(Connection con, String title, String sql, List<Object> params,
+                                    FetchMode mode, String... cols) throws SQLException {
+        Metrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            fetchPolicy.apply(ps, mode);
+            bind(ps, params);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                // With metrics on, formatting and printing are timed as they happen;
+                // whatever else the loop spends is fetching.
+                long[] format = null;
+                Metrics.TimedSink timed = null;
+                long loopStart = 0;
+                if (m != null) {
+                    loopStart = System.nanoTime();
+                    m.record(title, Metrics.Phase.EXECUTE, loopStart - start);
+                    format = new long[1];
+                    timed = new Metrics.TimedSink(sink);
+                }
+
+                ColumnPlan plan = ColumnPlan.of(sql, rs.getMetaData(), cols);
+                boolean[] right = plan.rightAlign();
+
+                // 1. Buffer a bounded sample of rows
+                List<String[]> sample = new ArrayList<>();
+                boolean more = true;
+                while (sample.size() < STREAM_SAMPLE_ROWS && (more = rs.next())) {
+                    sample.add(format(plan, rs, format));
+                }
+                if (more) {
+                    more = rs.next();
+                }
+
+                // 2. Choose widths: headers and sample, plus small declared sizes if rows remain
+                int[] w = new int[cols.length];
                 for (int c = 0; c < cols.length; c++) {
-                    Object val = rs.getObject(cols[c]);
-
-                    if (val == null) {
-                        r[c] = "";
-                    } else if (right[c] && val instanceof Number n) {
-                        // Format numbers with the right number format
-                        r[c] = isDecimal[c]
-                                ? decFmt.format(n.doubleValue())
-                                : intFmt.format(n.longValue());
-                    } else {
-                        // Default: just toString
-                        r[c] = String.valueOf(val);
+                    w[c] = cols[c].length();
+                    for (String[] r : sample) {
+                        w[c] = Math.max(w[c], r[c].length());
+                    }
+                    if (more) {
+                        int declared = plan.displaySize(c);
+                        if (declared <= STREAM_MAX_DECLARED_WIDTH) {
+                            w[c] = Math.max(w[c], declared);
+                        }
                     }
                 }
 
-                rows.add(r);
-            }
+                // 3. Print header, sampled rows, then every remaining row as it arrives
+                //    The sink's buffer is flushed whenever it fills, and once at the end.
+                ReportSink out = timed != null ? timed : sink;
+                String mid = line(B.LT, B.X , B.RT, w);
+                out.line("");
+                out.line(title);
+                printHeader(out, line(B.TL, B.TJ, B.TR, w), cols, w, mid);
+
+                long count = 0;
+                for (String[] r : sample) {
+                    // A separator goes between rows; the last row is closed by the bottom border
+                    if (count > 0) {
+                        out.line(mid);
+                    }
+                    out.line(row(r, w, right));
+                    count++;
+                }
+                while (more) {
+                    String[] r = format(plan, rs, format);
+                    if (count > 0) {
+                        out.line(mid);
+                    }
+                    out.line(row(r, w, right));
+                    count++;
+                    more = rs.next();
+                }
 
-            // Finally, print the table for this query
-            printTable(title, cols, rows, right);
+                out.line(line(B.BL, B.BJ, B.BR, w));
+                out.flush();
+
+                if (m != null) {
+                    long loop = System.nanoTime() - loopStart;
+                    m.record(title, Metrics.Phase.FETCH, loop - format[0] - timed.nanos());
+                    m.record(title, Metrics.Phase.FORMAT, format[0]);
+                    m.record(title, Metrics.Phase.PRINT, timed.nanos());
+                    m.rows(title, count);
+                    m.bytes(title, timed.chars());
+                }
+                return count;
+            }
         }
     }
 
+    /**
+     * Number format used for integer-like columns: no grouping (no commas).
+     * A new instance is returned each time because NumberFormat is not thread-safe.
+     * Cells are formatted by {@link CellFormatter}, which matches this format exactly.
+     */
+    static NumberFormat integerFormat() {
+        NumberFormat intFmt = NumberFormat.getIntegerInstance(Locale.US);
+        intFmt.setGroupingUsed(false);
+        return intFmt;
+    }
+
+    /**
+     * Number format used for decimal-like columns: no grouping, up to 2 decimal places.
+     * A new instance is returned each time because NumberFormat is not thread-safe.
+     * Cells are formatted by {@link CellFormatter}, which matches this format exactly
+     * and falls back to it for values it cannot round on its own.
+     */
+    static NumberFormat decimalFormat() {
+        NumberFormat decFmt = NumberFormat.getNumberInstance(Locale.US);
+        decFmt.setGroupingUsed(false);
+        decFmt.setMinimumFractionDigits(0);
+        decFmt.setMaximumFractionDigits(2);
+        return decFmt;
+    }
+
     // -------------------------------------------------------------------------
     // Helpers for parsing command-line arguments
     // -------------------------------------------------------------------------
@@ -448,8 +854,36 @@ public class App {
      * It will:
      *   1. Resolve DB host, port, timeout
      *   2. Build JDBC URL
-     *   3. Connect with retry
-     *   4. Run a series of 32 reports and print them as formatted tables
+     *   3. Open a connection pool (connecting with retry)
+     *   4. Run a series of 32 reports and print them as formatted tables (see {@link ReportSink})
+     *
+     * Environment variables REPORT_MODE ("sequential", "stream", "parallel", "batch" or "snapshot") and
+     * REPORT_THREADS (number of workers in parallel mode, default 4)
+     * choose how the reports are executed. Output order is the same either way.
+     * DB_POOL_MIN, DB_POOL_MAX and DB_POOL_IDLE_MS size the connection pool.
+     * REPORT_CACHE=1 turns on the result cache (REPORT_CACHE_SIZE, REPORT_CACHE_TTL_MS,
+     * REPORT_CACHE_PROBE = CHECKSUM or UPDATE_TIME) and REPORT_RUNS repeats the suite.
+     * REPORT_ONLY restricts the run to some report numbers, e.g. "1-6,23,32".
+     * Tables go to standard output; REPORT_OUTPUT names a file instead, or "log" to
+     * print them through the logger as before (REPORT_OUTPUT_BUFFER sets the buffer size).
+     * REPORT_MODE=advise runs no reports: it prints the query plan cost of each one and
+     * the indexes it is missing, and creates them when INDEX_ADVISOR_APPLY=1 (see {@link IndexAdvisor}).
+     * REPORT_MODE=groups prints the top REPORT_GROUP_TOP (default 10) cities and capitals of every
+     * continent, region, country and district instead of the suite (see {@link TopPerGroup}).
+     * REPORT_MODE=serve keeps running and answers report requests over HTTP on
+     * REPORT_HTTP_PORT (default 8080, see {@link ReportServer}).
+     * REPORT_MODE=incremental re-runs only the reports whose tables changed since the last run and
+     * replays the rest from REPORT_STATE_DIR (default .report-state; REPORT_STATE_PROBE as for
+     * the cache, see {@link ReportStore}).
+     * REPORT_MODE=export writes the three tables to REPORT_SNAPSHOT_FILE (default world.snapshot);
+     * REPORT_MODE=offline then answers the reports from that file, without connecting to MySQL
+     * (see {@link WorldSnapshot#open}).
+     * REPORT_FETCH ("auto", "buffered", "cursor" or "stream") sets how result sets are read;
+     * "auto" streams reports expected to return more than REPORT_STREAM_ROWS (default 1000)
+     * rows, with REPORT_DATA_SCALE the database size relative to the sample (see {@link FetchMode}).
+     * REPORT_FETCH_SIZE is the cursor batch size.
+     * REPORT_METRICS=1 times every report by phase (see {@link Metrics}) and prints a summary
+     * at the end; REPORT_METRICS_JSON names a file for the full histograms as JSON.
      */
     public static void main(String[] args) {
         // 1. Resolve host and port from args/env/defaults
@@ -465,473 +899,162 @@ public class App {
         String user = env("DB_USER", "app");
         String pass = env("DB_PASSWORD", "app123");
 
-        // 4. Build the MySQL JDBC URL
-        String url = String.format(
-                "jdbc:mysql://%s:%s/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC",
-                host, port, db
+        // 4. Build the MySQL JDBC URL.
+        //    Server-side prepared statements are cached per connection, so each report
+        //    template is parsed once and then only re-executed with new parameters.
+        //    useCursorFetch only takes effect for statements given a positive fetch size
+        //    (REPORT_FETCH=cursor, see FetchMode).
+        String baseUrl = String.format(
+                "jdbc:mysql://%s:%s/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
+                        + "&useServerPrepStmts=true&cachePrepStmts=true&useCursorFetch=true"
+                        + "&prepStmtCacheSize=%s&prepStmtCacheSqlLimit=%s",
+                host, port, db,
+                env("DB_STMT_CACHE_SIZE", "64"), env("DB_STMT_CACHE_SQL_LIMIT", "2048")
         );
 
+        //    Batch mode sends the whole suite as one multi-statement request, which the
+        //    driver only allows when asked to. Every value is still bound as a parameter.
+        String mode = env("REPORT_MODE", "sequential");
+        boolean batch = "batch".equalsIgnoreCase(mode);
+        String url = batch ? baseUrl + "&allowMultiQueries=true" : baseUrl;
+
         if (log.isLoggable(Level.INFO)) {
             log.info(() -> String.format("DB -> %s  user=%s  timeout=%dms%n", url, user, timeoutMs));
         }
 
+        // main installs its own sink below; whoever called it gets theirs back afterwards
+        ReportSink previousSink = sink;
         try {
             // 5. Ensure MySQL JDBC driver is loaded
             Class.forName("com.mysql.cj.jdbc.Driver");
 
-            // Number of attempts and wait between them for connectWithRetry
+            // Number of attempts, and the longest backoff between them, for new connections
             int attempts = 12;
             Duration wait = Duration.ofMillis(timeoutMs / attempts);
 
-            // 6. Open connection with retry logic
-            try (Connection con = connectWithRetry(url, user, pass, attempts, wait)) {
+            // 6. Run the report suite: one report at a time on a single connection (default),
+            //    streamed row by row, spread over a small pool of connections, or computed
+            //    from an in-memory snapshot.
+            //    REPORT_ONLY (e.g. "1-6,23,32") picks a subset of the suite.
+            List<Report> reports = ReportCatalog.select(ReportCatalog.all(), env("REPORT_ONLY", ""));
+            boolean parallel = "parallel".equalsIgnoreCase(mode);
+            boolean serve = "serve".equalsIgnoreCase(mode);
+            int threads = Integer.parseInt(env("REPORT_THREADS", "4"));
+
+            // 7. Connection pool sizing (parallel mode needs one connection per worker,
+            //    serve mode bounds concurrent requests' queries with it)
+            int poolMax = Integer.parseInt(env("DB_POOL_MAX", Integer.toString(parallel || serve ? threads : 1)));
+            int poolMin = Math.min(poolMax, Integer.parseInt(env("DB_POOL_MIN", "1")));
+            Duration idleTimeout = Duration.ofMillis(Long.parseLong(env("DB_POOL_IDLE_MS", "60000")));
+
+            // 8. Optional result cache, and how many times to run the suite in this process
+            if ("1".equals(env("REPORT_CACHE", "0"))) {
+                resultCache = new ResultCache(
+                        Integer.parseInt(env("REPORT_CACHE_SIZE", "64")),
+                        Duration.ofMillis(Long.parseLong(env("REPORT_CACHE_TTL_MS", "300000"))),
+                        TableProbe.Method.valueOf(env("REPORT_CACHE_PROBE", "CHECKSUM").toUpperCase(Locale.ROOT)));
+                resultCache.watch("country", "city", "countrylanguage");
+            }
+            int runs = Integer.parseInt(env("REPORT_RUNS", "1"));
+            ReportStore store = new ReportStore(Path.of(env("REPORT_STATE_DIR", ".report-state")),
+                    TableProbe.Method.valueOf(env("REPORT_STATE_PROBE", "CHECKSUM").toUpperCase(Locale.ROOT)));
+            fetchPolicy = FetchMode.Policy.parse(env("REPORT_FETCH", "auto"),
+                    Long.parseLong(env("REPORT_STREAM_ROWS", "1000")),
+                    Integer.parseInt(env("REPORT_FETCH_SIZE", "1000")),
+                    Double.parseDouble(env("REPORT_DATA_SCALE", "1")));
+            if ("1".equals(env("REPORT_METRICS", "0"))) {
+                metrics = new Metrics();
+            }
+
+            // 9. Where the tables are written: stdout (default), a file, or "log" for the logger
+            sink = ReportSink.open(env("REPORT_OUTPUT", "-"),
+                    Integer.parseInt(env("REPORT_OUTPUT_BUFFER", Integer.toString(ReportSink.DEFAULT_BUFFER))), log);
+            Path snapshotFile = Path.of(env("REPORT_SNAPSHOT_FILE", "world.snapshot"));
+
+            if ("offline".equalsIgnoreCase(mode)) {
+                // No database at all: every report is answered from the mapped snapshot file
+                try (ReportSink out = sink) {
+                    WorldSnapshot world = WorldSnapshot.open(snapshotFile);
+                    for (int run = 1; run <= runs; run++) {
+                        ReportRunner.runSnapshot(world, reports);
+                    }
+                    printMetrics(out);
+                }
+                return;
+            }
+
+            try (ReportSink out = sink;
+                 ConnectionPool pool = new ConnectionPool(url, user, pass, poolMin, poolMax,
+                    idleTimeout, Duration.ofMillis(timeoutMs), attempts, wait)) {
 
                 log.info(" Connected!");
 
-                // -----------------------------------------------------------------
-                // From this point, we run all 32 required reports.
-                // Each report is a call to runQuery(...) with a SQL text block.
-                // -----------------------------------------------------------------
-
-                log.info("\n======================");
-                log.info("Country Reports");
-                log.info("======================");
-
-                // 1. All Countries by Population (World)
-                runQuery(con, "1. All Countries by Population (World)",
-                        """
-                        SELECT Code, Name, Continent, Region, Population, Capital
-                        FROM country
-                        ORDER BY Population DESC
-                        """,
-                        "Code", "Name", "Continent", "Region", "Population", "Capital");
-
-                // 2. Countries by Population (Continent = Asia)
-                runQuery(con, "2. Countries by Population (Continent = Asia)",
-                        """
-                        SELECT Code, Name, Continent, Region, Population, Capital
-                        FROM country
-                        WHERE Continent = 'Asia'
-                        ORDER BY Population DESC
-                        """,
-                        "Code", "Name", "Continent", "Region", "Population", "Capital");
-
-                // 3. Countries by Population (Region = Caribbean)
-                runQuery(con, "3. Countries by Population (Region = Caribbean)",
-                        """
-                        SELECT Code, Name, Continent, Region, Population, Capital
-                        FROM country
-                        WHERE Region = 'Caribbean'
-                        ORDER BY Population DESC
-                        """,
-                        "Code", "Name", "Continent", "Region", "Population", "Capital");
-
-                // 4. Top 10 Countries (World)
-                runQuery(con, "4. Top 10 Countries (World)",
-                        """
-                        SELECT Code, Name, Continent, Region, Population, Capital
-                        FROM country
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Code", "Name", "Continent", "Region", "Population", "Capital");
-
-                // 5. Top 10 Countries (Continent = Europe)
-                runQuery(con, "5. Top 10 Countries (Continent = Europe)",
-                        """
-                        SELECT Code, Name, Continent, Region, Population, Capital
-                        FROM country
-                        WHERE Continent = 'Europe'
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Code", "Name", "Continent", "Region", "Population", "Capital");
-
-                // 6. Top 10 Countries (Region = Western Europe)
-                runQuery(con, "6. Top 10 Countries (Region = Western Europe)",
-                        """
-                        SELECT Code, Name, Continent, Region, Population, Capital
-                        FROM country
-                        WHERE Region = 'Western Europe'
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Code", "Name", "Continent", "Region", "Population", "Capital");
-
-                log.info("\n======================");
-                log.info("City Reports");
-                log.info("======================");
-
-                // 7. All cities in world
-                runQuery(con, "7. All cities in world",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        ORDER BY Population DESC
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 8. Cities by continent (Africa)
-                runQuery(con, "8. Cities by continent (Africa)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE c.Continent = 'Africa'
-                        ORDER BY Population DESC
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 9. Cities by region (Central Africa)
-                runQuery(con, "9. Cities by region (Central Africa)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE c.Region = 'Central Africa'
-                        ORDER BY Population DESC
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 10. Cities by country (Argentina)
-                runQuery(con, "10. Cities by country (Argentina)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE c.Name = 'Argentina'
-                        ORDER BY Population DESC
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 11. Cities by district (Limburg)
-                runQuery(con, "11. Cities by district (Limburg)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE ci.District = 'Limburg'
-                        ORDER BY Population DESC
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 12. Top 10 cities in world
-                runQuery(con, "12. Top 10 cities in world",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 13. Top 10 cities by continent (Africa)
-                runQuery(con, "13. Top 10 cities by continent (Africa)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE c.Continent = 'Africa'
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 14. Top 10 cities by region (Central Africa)
-                runQuery(con, "14. Top 10 cities by region (Central Africa)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE c.Region = 'Central Africa'
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 15. Top 10 cities by country (Argentina)
-                runQuery(con, "15. Top 10 cities by country (Argentina)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE c.Name = 'Argentina'
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                // 16. Top 10 cities by district (Limburg)
-                runQuery(con, "16. Top 10 cities by district (Limburg)",
-                        """
-                        SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
-                        FROM city ci
-                        LEFT JOIN country c ON ci.CountryCode = c.Code
-                        WHERE ci.District = 'Limburg'
-                        ORDER BY Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "District", "Population");
-
-                log.info("\n======================");
-                log.info("Capital City Reports");
-                log.info("======================");
-
-                // 17. All capital cities
-                runQuery(con, "17. All capital cities",
-                        """
-                        SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
-                        FROM city ci
-                        INNER JOIN country co ON ci.ID = co.Capital
-                        ORDER BY ci.Population DESC
-                        """,
-                        "Name", "Country", "Population");
-
-                // 18. Capitals by continent (Asia)
-                runQuery(con, "18. Capitals by continent (Asia)",
-                        """
-                        SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
-                        FROM city ci
-                        INNER JOIN country co ON ci.ID = co.Capital
-                        WHERE co.Continent = 'Asia'
-                        ORDER BY ci.Population DESC
-                        """,
-                        "Name", "Country", "Population");
-
-                // 19. Capitals by region (Eastern Asia)
-                runQuery(con, "19. Capitals by region (Eastern Asia)",
-                        """
-                        SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
-                        FROM city ci
-                        INNER JOIN country co ON ci.ID = co.Capital
-                        WHERE co.Region = 'Eastern Asia'
-                        ORDER BY ci.Population DESC
-                        """,
-                        "Name", "Country", "Population");
-
-                // 20. Top 10 capitals in world
-                runQuery(con, "20. Top 10 capitals in world",
-                        """
-                        SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
-                        FROM city ci
-                        INNER JOIN country co ON ci.ID = co.Capital
-                        ORDER BY ci.Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "Population");
-
-                // 21. Top 10 capitals by continent (Africa)
-                runQuery(con, "21. Top 10 capitals by continent (Africa)",
-                        """
-                        SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
-                        FROM city ci
-                        INNER JOIN country co ON ci.ID = co.Capital
-                        WHERE co.Continent = 'Africa'
-                        ORDER BY ci.Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "Population");
-
-                // 22. Top 10 capitals by region (Western Europe)
-                runQuery(con, "22. Top 10 capitals by region (Western Europe)",
-                        """
-                        SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
-                        FROM city ci
-                        INNER JOIN country co ON ci.ID = co.Capital
-                        WHERE co.Region = 'Western Europe'
-                        ORDER BY ci.Population DESC
-                        LIMIT 10
-                        """,
-                        "Name", "Country", "Population");
-
-                log.info("\n======================");
-                log.info("Population Distribution and Population by Location");
-                log.info("======================");
-
-                // 23. Population Report (Continent)
-                runQuery(con, "23. Population Report (Continent)",
-                        """
-                        SELECT
-                            co.Continent AS Name,
-                            SUM(co.Population) AS `Total Population`,
-                            ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        LEFT JOIN (
-                            SELECT CountryCode, SUM(Population) AS City_Pop
-                            FROM city
-                            GROUP BY CountryCode
-                        ) ci ON co.Code = ci.CountryCode
-                        GROUP BY co.Continent
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                // 24. Population Report (Region)
-                runQuery(con, "24. Population Report (Region)",
-                        """
-                        SELECT
-                            co.Region AS Name,
-                            SUM(co.Population) AS `Total Population`,
-                            ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        LEFT JOIN (
-                            SELECT CountryCode, SUM(Population) AS City_Pop
-                            FROM city
-                            GROUP BY CountryCode
-                        ) ci ON co.Code = ci.CountryCode
-                        GROUP BY co.Region
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                // 25. Population Report (Country)
-                runQuery(con, "25. Population Report (Country)",
-                        """
-                        SELECT
-                            co.Name AS Country,
-                            co.Population AS `Total Population`,
-                            ROUND(SUM(ci.Population) / co.Population * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.Population) / co.Population) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        LEFT JOIN city ci ON co.Code = ci.CountryCode
-                        GROUP BY co.Code, co.Name, co.Population
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "Country", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                // 26. World population (single number)
-                runQuery(con, "26. World population",
-                        """
-                        SELECT SUM(Population) AS total_world_population
-                        FROM country
-                        """,
-                        "total_world_population");
-
-                // 27. Continent population (Africa)
-                runQuery(con, "27. Continent population (Africa)",
-                        """
-                        SELECT
-                            co.Continent AS Name,
-                            SUM(co.Population) AS `Total Population`,
-                            ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        LEFT JOIN (
-                            SELECT CountryCode, SUM(Population) AS City_Pop
-                            FROM city
-                            GROUP BY CountryCode
-                        ) ci ON co.Code = ci.CountryCode
-                        WHERE co.Continent = 'Africa'
-                        GROUP BY co.Continent
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                // 28. Region population (Central Africa)
-                runQuery(con, "28. Region population (Central Africa)",
-                        """
-                        SELECT
-                            co.Region AS Name,
-                            SUM(co.Population) AS `Total Population`,
-                            ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        LEFT JOIN (
-                            SELECT CountryCode, SUM(Population) AS City_Pop
-                            FROM city
-                            GROUP BY CountryCode
-                        ) ci ON co.Code = ci.CountryCode
-                        WHERE co.Region = 'Central Africa'
-                        GROUP BY co.Region
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                // 29. Country population (Spain)
-                runQuery(con, "29. Country population (Spain)",
-                        """
-                        SELECT
-                            co.Name AS Name,
-                            SUM(co.Population) AS `Total Population`,
-                            ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        LEFT JOIN (
-                            SELECT CountryCode, SUM(Population) AS City_Pop
-                            FROM city
-                            GROUP BY CountryCode
-                        ) ci ON co.Code = ci.CountryCode
-                        WHERE co.Name = 'Spain'
-                        GROUP BY co.Name
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                // 30. District population (Limburg)
-                runQuery(con, "30. District population (Limburg)",
-                        """
-                        SELECT
-                            ci.District AS District,
-                            SUM(ci.City_Pop) AS `Total Population`,
-                            ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        INNER JOIN (
-                            SELECT CountryCode, District, SUM(Population) AS City_Pop
-                            FROM city
-                            WHERE District = 'Limburg'
-                            GROUP BY CountryCode, District
-                        ) ci ON co.Code = ci.CountryCode
-                        GROUP BY ci.District
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "District", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                // 31. City population (London)
-                runQuery(con, "31. City population (London)",
-                        """
-                        SELECT
-                            ci.Name AS city_name,
-                            SUM(ci.City_Pop) AS `Total Population`,
-                            ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
-                            ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
-                        FROM country co
-                        INNER JOIN (
-                            SELECT CountryCode, Name, SUM(Population) AS City_Pop
-                            FROM city
-                            WHERE Name = 'London'
-                            GROUP BY CountryCode, Name
-                        ) ci ON co.Code = ci.CountryCode
-                        GROUP BY ci.Name
-                        ORDER BY `Total Population` DESC
-                        """,
-                        "city_name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)");
-
-                log.info("\n======================");
-                log.info("Language Reports");
-                log.info("======================");
-
-                // 32. Population by language (Chinese, English, Hindi, Spanish, Arabic)
-                runQuery(con, "32. Population by language (Chinese, English, Hindi, Spanish, Arabic)",
-                        """
-                        SELECT
-                            cl.Language AS Language,
-                            ROUND(SUM(c.Population * cl.Percentage / 100)) AS Num_of_people,
-                            ROUND(
-                                (SUM(c.Population * cl.Percentage / 100) /
-                                 (SELECT SUM(Population) FROM country) * 100), 2
-                            ) AS Percent_of_world
-                        FROM countrylanguage cl
-                        JOIN country c ON cl.CountryCode = c.Code
-                        WHERE cl.Language IN ('Chinese','English','Hindi','Spanish','Arabic')
-                        GROUP BY cl.Language
-                        ORDER BY Num_of_people DESC
-                        """,
-                        "Language", "Num_of_people", "Percent_of_world");
+                if (serve) {
+                    // Long-running: answer report requests over HTTP until shut down
+                    ReportServer.serve(pool, reports, Integer.parseInt(env("REPORT_HTTP_PORT", "8080")));
+                    runs = 0; // shutting down: the suite itself is not run in serve mode
+                }
+
+                for (int run = 1; run <= runs; run++) {
+                    // Drop cached reports whose tables changed since the previous run
+                    if (resultCache != null) {
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            resultCache.revalidate(con);
+                        }
+                    }
+
+                    if ("advise".equalsIgnoreCase(mode)) {
+                        // Maintenance: explain every report query instead of running it
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            printTable(IndexAdvisor.advise(con, reports, "1".equals(env("INDEX_ADVISOR_APPLY", "0"))));
+                        }
+                    } else if ("groups".equalsIgnoreCase(mode)) {
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            ReportRunner.runTopPerGroup(con, TopPerGroup.SUITE,
+                                    Integer.parseInt(env("REPORT_GROUP_TOP", "10")));
+                        }
+                    } else if (parallel) {
+                        ReportRunner.runParallel(pool, reports, threads);
+                    } else if ("stream".equalsIgnoreCase(mode)) {
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            ReportRunner.runStreaming(con, reports);
+                        }
+                    } else if (batch) {
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            ReportRunner.runBatch(con, reports);
+                        }
+                    } else if ("incremental".equalsIgnoreCase(mode)) {
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            ReportRunner.runIncremental(con, reports, store);
+                        }
+                    } else if ("export".equalsIgnoreCase(mode)) {
+                        // Write the tables to a snapshot file for REPORT_MODE=offline
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            WorldSnapshot world = WorldSnapshot.load(con);
+                            world.save(snapshotFile);
+                            if (log.isLoggable(Level.INFO)) {
+                                log.info(() -> String.format(" Snapshot written to %s: %d countries, %d cities, %d languages",
+                                        snapshotFile, world.countryCount(), world.cityCount(), world.languageCount()));
+                            }
+                        }
+                    } else if ("snapshot".equalsIgnoreCase(mode)) {
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            ReportRunner.runSnapshot(con, reports);
+                        }
+                    } else {
+                        try (Connection con = acquire(pool, Metrics.RUN)) {
+                            ReportRunner.runSequential(con, reports);
+                        }
+                    }
+                }
+
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine(pool.stats());
+                }
+                if (resultCache != null && log.isLoggable(Level.INFO)) {
+                    log.info(resultCache.stats());
+                }
+                printMetrics(out);
             }
         } catch (Exception e) {
             // If anything goes wrong (connection, query, etc.), log the error and exit with status 1
@@ -939,6 +1062,8 @@ public class App {
                 log.severe(() -> String.format("Error: " + e.getMessage(), e));
             }
             System.exit(1);
+        } finally {
+            sink = previousSink;
         }
     }
 }
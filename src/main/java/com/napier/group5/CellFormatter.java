@@ -0,0 +1,113 @@
+package com.napier.group5;
+
+import java.math.BigDecimal;
+
+/**
+ * Formats numeric cells exactly like {@link App#integerFormat()} and
+ * {@link App#decimalFormat()} (Locale.US, no grouping, at most 2 decimals,
+ * HALF_EVEN rounding, trailing zeros dropped), without a NumberFormat.
+ *
+ * Digits are written into a small local char array, so formatting a value
+ * allocates nothing but the resulting String. All methods are static and keep
+ * no state, so they are safe to call from any number of threads.
+ *
+ * Values the fast path cannot prove it rounds the same way as NumberFormat
+ * (NaN, infinities, magnitudes of 1e9 and above, and values within a hair of a
+ * rounding tie) are handed to a fresh NumberFormat, so the output never differs.
+ */
+final class CellFormatter {
+
+    /**
+     * Doubles below this magnitude are rounded with plain double arithmetic:
+     * value × 100 is then accurate to far better than {@link #TIE_MARGIN}.
+     */
+    private static final double FAST_LIMIT = 1e9;
+
+    /**
+     * How far (in hundredths) a value must be from a rounding tie for the fast path.
+     */
+    private static final double TIE_MARGIN = 1e-4;
+
+    /**
+     * DECIMAL values with at most this many digits convert to double and back exactly.
+     */
+    private static final int EXACT_PRECISION = 15;
+
+    private CellFormatter() {
+    }
+
+    /**
+     * @param v Value of an integer column
+     * @return the value as NumberFormat.getIntegerInstance(Locale.US) without grouping prints it
+     */
+    static String formatLong(long v) {
+        return Long.toString(v);
+    }
+
+    /**
+     * Formats a DECIMAL value the way the decimal NumberFormat formats its double value.
+     *
+     * @param v Value of a DECIMAL / NUMERIC column
+     * @return the formatted cell
+     */
+    static String formatDecimal(BigDecimal v) {
+        int scale = v.scale();
+        if (scale >= 0 && scale <= 2 && v.precision() <= EXACT_PRECISION) {
+            // Already at most 2 decimals: nothing to round, only trailing zeros to drop.
+            // The unscaled value is below 2^53, so the double round trip is exact.
+            long unscaled = Math.round(v.doubleValue() * (scale == 0 ? 1 : scale == 1 ? 10 : 100));
+            return fixedPoint(scale == 0 ? unscaled * 100 : scale == 1 ? unscaled * 10 : unscaled, false);
+        }
+        return formatDecimal(v.doubleValue());
+    }
+
+    /**
+     * Formats a floating point value like the decimal NumberFormat.
+     *
+     * @param d Value of a FLOAT / DOUBLE column, or a DECIMAL converted to double
+     * @return the formatted cell
+     */
+    static String formatDecimal(double d) {
+        if (!(Math.abs(d) < FAST_LIMIT)) {
+            return App.decimalFormat().format(d);
+        }
+        double hundredths = d * 100;
+        double frac = hundredths - Math.floor(hundredths);
+        if (Math.abs(frac - 0.5) < TIE_MARGIN) {
+            return App.decimalFormat().format(d);
+        }
+        // NumberFormat keeps the sign of negative values that round to zero ("-0")
+        return fixedPoint(Math.round(hundredths), Double.doubleToRawLongBits(d) < 0);
+    }
+
+    /**
+     * Writes a value given in hundredths, e.g. 12345 -> "123.45", 1230 -> "12.3", 1200 -> "12".
+     *
+     * @param hundredths Value × 100
+     * @param negative   True if the original value was negative (matters when it rounds to 0)
+     */
+    private static String fixedPoint(long hundredths, boolean negative) {
+        char[] buf = new char[24];
+        int pos = buf.length;
+
+        long u = Math.abs(hundredths);
+        int frac = (int) (u % 100);
+        long whole = u / 100;
+
+        if (frac != 0) {
+            if (frac % 10 != 0) {
+                buf[--pos] = (char) ('0' + frac % 10);
+            }
+            buf[--pos] = (char) ('0' + frac / 10);
+            buf[--pos] = '.';
+        }
+        do {
+            buf[--pos] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole != 0);
+        if (negative || hundredths < 0) {
+            buf[--pos] = '-';
+        }
+        return new String(buf, pos, buf.length - pos);
+    }
+}
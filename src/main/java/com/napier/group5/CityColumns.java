@@ -0,0 +1,287 @@
+package com.napier.group5;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * The city table held off the Java heap, one packed column per field.
+ *
+ * Everything lives in a single direct {@link ByteBuffer}, laid out as
+ * <pre>
+ *   id[n] | population[n] | country[n] | text[2n+1] | UTF-8 bytes
+ * </pre>
+ * where {@code country} is the country ordinal (-1 when unknown) and {@code text}
+ * holds byte offsets into the UTF-8 area: row {@code i}'s name is
+ * {@code [text[2i], text[2i+1])} and its district {@code [text[2i+1], text[2i+2])}.
+ * A million cities take roughly 20 bytes per row plus their names, in one object
+ * the garbage collector never has to trace, instead of two Strings and their byte
+ * arrays per row on the heap.
+ *
+ * Rows are addressed by ordinal (load order, i.e. by ID). The operators work on
+ * selection vectors ({@code int[]} of ordinals): {@link #select} filters (name and
+ * district lookups go through a {@link NameIndex} instead), {@link #byPopulationDesc}
+ * sorts and {@link #sumByCountry} aggregates, so a report only turns the rows it
+ * prints into Strings.
+ *
+ * The buffer is little-endian whatever the platform, so the same bytes can be
+ * written to a snapshot file and mapped back in ({@link #bytes}, {@link #wrap}).
+ *
+ * Immutable once built and safe to share between threads (only absolute reads are used).
+ */
+final class CityColumns {
+
+    private static final int INT = Integer.BYTES;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final int size;
+    private final ByteBuffer data;
+    private final int popBase;
+    private final int countryBase;
+    private final int textBase;
+    private final int blobBase;
+
+    private CityColumns(int size, ByteBuffer data) {
+        this.size = size;
+        this.data = data;
+        this.popBase = size * INT;
+        this.countryBase = 2 * size * INT;
+        this.textBase = 3 * size * INT;
+        this.blobBase = textBase + (2 * size + 1) * INT;
+    }
+
+    /**
+     * Builds the columns from arrays (one index per row).
+     */
+    static CityColumns of(int[] id, String[] name, int[] country, String[] district, int[] population) {
+        Builder b = new Builder();
+        for (int i = 0; i < id.length; i++) {
+            b.add(id[i], name[i], country[i], district[i], population[i]);
+        }
+        return b.build();
+    }
+
+    /**
+     * Reads columns laid out by {@link #bytes}, e.g. a region of a memory-mapped file.
+     * Nothing is copied.
+     *
+     * @param size Number of cities
+     * @param data The column bytes, from position 0
+     * @return the columns
+     * @throws IllegalArgumentException if {@code data} is too short for {@code size} rows
+     */
+    static CityColumns wrap(int size, ByteBuffer data) {
+        ByteBuffer b = data.duplicate().order(ORDER);
+        long fixed = (5L * size + 1) * INT;
+        if (size < 0 || b.capacity() < fixed || b.capacity() < fixed + b.getInt((int) fixed - INT)) {
+            throw new IllegalArgumentException("City columns truncated (" + size + " rows, " + b.capacity() + " bytes)");
+        }
+        return new CityColumns(size, b);
+    }
+
+    /**
+     * @return the column bytes (read-only view), for writing to a file
+     */
+    ByteBuffer bytes() {
+        return data.asReadOnlyBuffer().clear();
+    }
+
+    // -------------------------------------------------------------------------
+    // Row access
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return number of cities
+     */
+    int size() {
+        return size;
+    }
+
+    int id(int row) {
+        return data.getInt(row * INT);
+    }
+
+    int population(int row) {
+        return data.getInt(popBase + row * INT);
+    }
+
+    /**
+     * @return the country ordinal, -1 when the CountryCode is unknown
+     */
+    int country(int row) {
+        return data.getInt(countryBase + row * INT);
+    }
+
+    String name(int row) {
+        return text(2 * row);
+    }
+
+    String district(int row) {
+        return text(2 * row + 1);
+    }
+
+    /**
+     * @return the row holding city {@code id}, or a negative value if there is none
+     */
+    int find(int id) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int v = id(mid);
+            if (v < id) {
+                lo = mid + 1;
+            } else if (v > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private int offset(int field) {
+        return data.getInt(textBase + field * INT);
+    }
+
+    private String text(int field) {
+        int start = offset(field);
+        byte[] bytes = new byte[offset(field + 1) - start];
+        data.get(blobBase + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // -------------------------------------------------------------------------
+    // Operators
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return ordinals of the rows matching {@code keep}, in row order
+     */
+    int[] select(IntPredicate keep) {
+        int[] out = new int[size];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            if (keep.test(row)) {
+                out[n++] = row;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Sorts rows by population, largest first; ties are in row (ID) order, as a stable
+     * sort of {@link #select}'s output would leave them.
+     *
+     * @param rows Row ordinals
+     * @return a new array, sorted
+     */
+    int[] byPopulationDesc(int[] rows) {
+        // Population in the high half, inverted ordinal in the low half: one primitive sort
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = ((long) population(rows[i]) << 32) | (~rows[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys);
+        int[] out = new int[rows.length];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = ~(int) keys[keys.length - 1 - i];
+        }
+        return out;
+    }
+
+    /**
+     * SUM(Population) GROUP BY country, over every row with a known country.
+     *
+     * @param countries Number of countries
+     * @param hasCities Set to true for every country that has at least one city
+     * @return total city population per country ordinal
+     */
+    long[] sumByCountry(int countries, boolean[] hasCities) {
+        long[] sums = new long[countries];
+        for (int row = 0; row < size; row++) {
+            int c = country(row);
+            if (c >= 0) {
+                sums[c] += population(row);
+                hasCities[c] = true;
+            }
+        }
+        return sums;
+    }
+
+    // -------------------------------------------------------------------------
+    // Building
+    // -------------------------------------------------------------------------
+
+    /**
+     * Collects rows into growing direct buffers, then packs them into one exact-size
+     * buffer. Nothing per row is kept on the heap while loading either.
+     */
+    static final class Builder {
+
+        private ByteBuffer ints = allocate(4096);   // id, population, country per row
+        private ByteBuffer text = allocate(4096);   // name start, district start per row
+        private ByteBuffer blob = allocate(16384);
+        private int size;
+
+        /**
+         * Appends a row; rows must be added in ID order for {@link #find} to work.
+         */
+        Builder add(int id, String name, int country, String district, int population) {
+            ints = ensure(ints, 3 * INT);
+            ints.putInt(id).putInt(population).putInt(country);
+            text = ensure(text, 2 * INT);
+            text.putInt(blob.position());
+            append(name);
+            text.putInt(blob.position());
+            append(district);
+            size++;
+            return this;
+        }
+
+        private void append(String s) {
+            byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            blob = ensure(blob, bytes.length);
+            blob.put(bytes);
+        }
+
+        /**
+         * @return the packed columns
+         */
+        CityColumns build() {
+            int blobLen = blob.position();
+            ByteBuffer data = allocate((3 * size + 2 * size + 1) * INT + blobLen);
+            ints.flip();
+            for (int field = 0; field < 3; field++) {
+                for (int row = 0; row < size; row++) {
+                    data.putInt(ints.getInt((3 * row + field) * INT));
+                }
+            }
+            text.flip();
+            data.put(text);
+            data.putInt(blobLen);
+            blob.flip();
+            data.put(blob);
+            return new CityColumns(size, data.flip());
+        }
+
+        private static ByteBuffer ensure(ByteBuffer b, int more) {
+            if (b.remaining() >= more) {
+                return b;
+            }
+            long want = Math.max((long) b.capacity() * 2, (long) b.position() + more);
+            if (want > Integer.MAX_VALUE) {
+                throw new IllegalStateException("City columns larger than 2 GB");
+            }
+            ByteBuffer bigger = allocate((int) want);
+            bigger.put(b.flip());
+            return bigger;
+        }
+
+        private static ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ORDER);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.napier.group5;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How to read and format the displayed columns of one report's result set:
+ * for each column its position, JDBC type, alignment and formatter.
+ *
+ * A plan is worked out from {@link ResultSetMetaData} the first time a report runs
+ * and cached by SQL text and column list, so later runs only check that the result
+ * still has the same labels at the same positions. Rows are then read by position
+ * with typed getters instead of looking each label up for every cell.
+ *
+ * Plans are immutable and shared between threads.
+ */
+final class ColumnPlan {
+
+    /**
+     * How a column's cells are read and formatted.
+     */
+    enum Kind {
+        /** Left aligned, {@code String.valueOf(getObject)}. */
+        TEXT,
+        /** Right aligned, {@code getLong} formatted by {@link CellFormatter#formatLong}. */
+        INTEGER,
+        /** Right aligned, {@code getBigDecimal} formatted by {@link CellFormatter#formatDecimal(BigDecimal)}. */
+        DECIMAL
+    }
+
+    /**
+     * Upper bound on cached plans; the cache is simply emptied when it is reached
+     * (the report suite needs a few dozen).
+     */
+    private static final int MAX_CACHED = 512;
+
+    private static final Map<List<Object>, ColumnPlan> CACHE = new ConcurrentHashMap<>();
+
+    private final String[] labels;
+    private final int[] position;      // 1-based, 0 when the label is not in the result
+    private final int[] jdbcType;
+    private final Kind[] kind;
+    private final int[] displaySize;   // declared display width, Integer.MAX_VALUE when unknown
+    private final boolean[] right;
+    private final int columnCount;     // columns in the whole result, for the reuse check
+
+    private ColumnPlan(String[] labels, int[] position, int[] jdbcType, Kind[] kind,
+                       int[] displaySize, int columnCount) {
+        this.labels = labels;
+        this.position = position;
+        this.jdbcType = jdbcType;
+        this.kind = kind;
+        this.displaySize = displaySize;
+        this.columnCount = columnCount;
+        this.right = new boolean[kind.length];
+        for (int c = 0; c < kind.length; c++) {
+            right[c] = kind[c] != Kind.TEXT;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Lookup
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the cached plan for this SQL and column list if it still fits the result,
+     * otherwise builds (and caches) a new one.
+     *
+     * @param sql  SQL text the result set came from (cache key)
+     * @param md   Metadata of the result set
+     * @param cols Column labels to display
+     * @return the plan
+     * @throws SQLException if the metadata cannot be read
+     */
+    static ColumnPlan of(String sql, ResultSetMetaData md, String... cols) throws SQLException {
+        List<Object> key = List.of(sql, List.of(cols));
+        ColumnPlan plan = CACHE.get(key);
+        if (plan != null && plan.fits(md)) {
+            return plan;
+        }
+        plan = build(md, cols);
+        if (CACHE.size() >= MAX_CACHED) {
+            CACHE.clear();
+        }
+        CACHE.put(key, plan);
+        return plan;
+    }
+
+    /**
+     * Works out a plan from the metadata, without the cache.
+     *
+     * @param md   Metadata of the result set
+     * @param cols Column labels to display
+     * @return the plan
+     * @throws SQLException if the metadata cannot be read
+     */
+    static ColumnPlan build(ResultSetMetaData md, String... cols) throws SQLException {
+        int n = md.getColumnCount();
+        int[] position = new int[cols.length];
+        int[] type = new int[cols.length];
+        Kind[] kind = new Kind[cols.length];
+        int[] size = new int[cols.length];
+
+        for (int c = 0; c < cols.length; c++) {
+            // First column with this label, as rs.getObject(label) would pick
+            for (int i = 1; i <= n && position[c] == 0; i++) {
+                if (md.getColumnLabel(i).equals(cols[c])) {
+                    position[c] = i;
+                }
+            }
+            type[c] = position[c] == 0 ? Types.VARCHAR : md.getColumnType(position[c]);
+            size[c] = position[c] == 0 ? Integer.MAX_VALUE : md.getColumnDisplaySize(position[c]);
+            kind[c] = kindOf(type[c]);
+        }
+        return new ColumnPlan(cols.clone(), position, type, kind, size, n);
+    }
+
+    /**
+     * Chooses alignment and formatting from the JDBC type.
+     */
+    private static Kind kindOf(int jdbcType) {
+        return switch (jdbcType) {
+            case Types.INTEGER, Types.BIGINT, Types.SMALLINT, Types.TINYINT -> Kind.INTEGER;
+            case Types.DECIMAL, Types.NUMERIC, Types.FLOAT, Types.REAL, Types.DOUBLE -> Kind.DECIMAL;
+            default -> Kind.TEXT;
+        };
+    }
+
+    /**
+     * Cheap reuse check: same number of columns and the planned labels at the planned positions.
+     */
+    private boolean fits(ResultSetMetaData md) throws SQLException {
+        if (md.getColumnCount() != columnCount) {
+            return false;
+        }
+        for (int c = 0; c < labels.length; c++) {
+            if (position[c] != 0 && !md.getColumnLabel(position[c]).equals(labels[c])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Empties the plan cache.
+     */
+    static void clearCache() {
+        CACHE.clear();
+    }
+
+    // -------------------------------------------------------------------------
+    // Reading rows
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads the current row and formats each planned column as text.
+     * NULL becomes an empty cell.
+     *
+     * @param rs Result set positioned on a row
+     * @return one cell per planned column
+     * @throws SQLException if a value cannot be read, or a label is not in the result
+     */
+    String[] format(ResultSet rs) throws SQLException {
+        String[] r = new String[labels.length];
+        for (int c = 0; c < labels.length; c++) {
+            int p = position[c];
+            if (p == 0) {
+                // Not in the result: let the driver report the unknown label as before
+                Object val = rs.getObject(labels[c]);
+                r[c] = val == null ? "" : String.valueOf(val);
+                continue;
+            }
+            switch (kind[c]) {
+                case INTEGER -> {
+                    long v = rs.getLong(p);
+                    r[c] = rs.wasNull() ? "" : CellFormatter.formatLong(v);
+                }
+                case DECIMAL -> {
+                    BigDecimal v = rs.getBigDecimal(p);
+                    r[c] = v == null ? "" : CellFormatter.formatDecimal(v);
+                }
+                default -> {
+                    Object val = rs.getObject(p);
+                    r[c] = val == null ? "" : String.valueOf(val);
+                }
+            }
+        }
+        return r;
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return per column: true if right aligned (numeric). Shared, do not modify.
+     */
+    boolean[] rightAlign() {
+        return right;
+    }
+
+    /**
+     * @param c Displayed column index (0-based)
+     * @return 1-based position in the result, 0 if the label is not in the result
+     */
+    int position(int c) {
+        return position[c];
+    }
+
+    /**
+     * @param c Displayed column index (0-based)
+     * @return JDBC type of the column ({@link Types#VARCHAR} if not in the result)
+     */
+    int jdbcType(int c) {
+        return jdbcType[c];
+    }
+
+    /**
+     * @param c Displayed column index (0-based)
+     * @return how the column is read and formatted
+     */
+    Kind kind(int c) {
+        return kind[c];
+    }
+
+    /**
+     * @param c Displayed column index (0-based)
+     * @return declared display width, Integer.MAX_VALUE if the label is not in the result
+     */
+    int displaySize(int c) {
+        return displaySize[c];
+    }
+}
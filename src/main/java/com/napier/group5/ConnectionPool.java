@@ -0,0 +1,511 @@
+package com.napier.group5;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small, self-contained JDBC connection pool.
+ *
+ * - Keeps between {@code minSize} and {@code maxSize} physical connections.
+ * - Hands out the most recently used idle connection first (it is the most likely to be warm).
+ * - Checks a connection with {@link Connection#isValid(int)} (a protocol-level ping)
+ *   before handing it out if it has been idle for a while.
+ * - Closes connections that stay idle longer than {@code idleTimeout}, down to {@code minSize}.
+ * - New connections are opened with {@link App#connectWithRetry}, i.e. with exponential
+ *   backoff and jitter while the database is not yet reachable.
+ * - A borrower's autoCommit / readOnly changes (and any open transaction) are undone
+ *   when the connection comes back, so they never leak to the next borrower.
+ * - Connections are never opened, pinged or closed while the pool's lock is held.
+ *
+ * Connections returned by {@link #acquire()} are wrappers: calling {@code close()} on them
+ * gives the connection back to the pool instead of closing the socket, so the usual
+ * try-with-resources pattern works unchanged.
+ */
+final class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Logger for pool diagnostics (connections opened, evicted, discarded).
+     */
+    private static final Logger log = Logger.getLogger(ConnectionPool.class.getName());
+
+    /**
+     * Idle connections younger than this are handed out without a liveness check.
+     */
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Seconds allowed for the {@link Connection#isValid(int)} ping.
+     */
+    private static final int VALIDATE_TIMEOUT_SECONDS = 2;
+
+    /**
+     * An idle physical connection and when it was last returned.
+     */
+    private record Idle(Connection con, long since) {
+    }
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long acquireTimeoutNanos;
+    private final int attempts;
+    private final Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    // Counters, guarded by lock
+    private int total;      // physical connections open or being opened
+    private int inUse;      // connections currently handed out
+    private int waiting;    // callers blocked in acquire()
+    private long created;   // physical connections opened over the pool's lifetime
+    private boolean closed;
+
+    /**
+     * Creates a pool and opens {@code minSize} connections straight away.
+     *
+     * @param url            JDBC URL
+     * @param user           DB username
+     * @param pass           DB password
+     * @param minSize        Connections kept open even when idle
+     * @param maxSize        Upper bound on open connections
+     * @param idleTimeout    Idle time after which connections above minSize are closed
+     * @param acquireTimeout How long {@link #acquire()} waits for a free connection
+     * @param attempts       Connection attempts when opening a new connection
+     * @param maxWait        Upper bound on the backoff delay between attempts
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    ConnectionPool(String url, String user, String pass, int minSize, int maxSize,
+                   Duration idleTimeout, Duration acquireTimeout,
+                   int attempts, Duration maxWait) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + " max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.attempts = attempts;
+        this.maxWait = maxWait;
+
+        // Background eviction of connections idle for too long
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        // Warm up minSize connections
+        try {
+            for (int i = 0; i < minSize; i++) {
+                Connection con = open();
+                lock.lock();
+                try {
+                    total++;
+                    idle.push(new Idle(con, System.nanoTime()));
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Acquire / release
+    // -------------------------------------------------------------------------
+
+    /**
+     * Borrows a connection, opening a new one if none is idle and the pool is below
+     * maxSize, or waiting for one to be returned otherwise.
+     * Close the returned connection to give it back.
+     *
+     * @return a pooled connection
+     * @throws SQLException if no connection becomes available within the acquire timeout,
+     *                      or a new connection cannot be opened
+     */
+    Connection acquire() throws SQLException {
+        long deadline = System.nanoTime() + acquireTimeoutNanos;
+        while (true) {
+            // 1. Under the lock: take an idle connection, or reserve a slot for a new one
+            Idle candidate = null;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    // Most recently returned first
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        inUse++;
+                        break;
+                    }
+                    if (total < maxSize) {
+                        total++;
+                        break;
+                    }
+                    // Wait for a connection to be returned
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out waiting for a pooled connection (max " + maxSize + ")");
+                    }
+                    waiting++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a pooled connection", e);
+                    } finally {
+                        waiting--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // 2. Outside the lock: open the new connection, giving the slot back if that fails
+            if (candidate == null) {
+                Connection con = null;
+                try {
+                    con = open();
+                } finally {
+                    lock.lock();
+                    try {
+                        if (con == null) {
+                            total--;
+                            available.signal();
+                        } else {
+                            inUse++;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                return wrap(con);
+            }
+
+            // 3. Outside the lock: ping a connection that has been idle for a while
+            if (System.nanoTime() - candidate.since() < VALIDATE_AFTER_NANOS) {
+                return wrap(candidate.con());
+            }
+            boolean alive = false;
+            try {
+                alive = isAlive(candidate.con());
+            } finally {
+                if (!alive) {
+                    // Dead (or the ping failed): drop it, then try again
+                    drop(candidate.con(), true);
+                }
+            }
+            if (alive) {
+                return wrap(candidate.con());
+            }
+        }
+    }
+
+    /**
+     * Gives a physical connection back to the pool (called by the wrapper's close()).
+     * A connection whose borrower changed autoCommit or readOnly is put back to the
+     * defaults first, rolling back any open transaction; if that fails it is closed.
+     *
+     * @param con     Physical connection
+     * @param touched true if the borrower changed its session settings
+     */
+    private void release(Connection con, boolean touched) {
+        boolean reusable = !touched || reset(con);
+        boolean discard;
+        lock.lock();
+        try {
+            inUse--;
+            discard = closed || !reusable;
+            if (!discard) {
+                idle.push(new Idle(con, System.nanoTime()));
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (discard) {
+            drop(con, false);
+        }
+    }
+
+    /**
+     * Restores autoCommit and readOnly to their defaults, rolling back an open transaction.
+     *
+     * @return false if the connection could not be reset and must not be reused
+     */
+    private static boolean reset(Connection con) {
+        try {
+            if (!con.getAutoCommit()) {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+            if (con.isReadOnly()) {
+                con.setReadOnly(false);
+            }
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            if (log.isLoggable(Level.WARNING)) {
+                log.warning(() -> "Could not reset pooled connection: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Forgets a physical connection and closes it. The lock is not held while closing,
+     * so a close that waits on the network does not block other borrowers.
+     *
+     * @param con      Physical connection
+     * @param borrowed true if it is still counted as in use
+     */
+    private void drop(Connection con, boolean borrowed) {
+        lock.lock();
+        try {
+            if (borrowed) {
+                inUse--;
+            }
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        discard(con);
+    }
+
+    // -------------------------------------------------------------------------
+    // Counters
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return number of callers currently blocked waiting for a connection
+     */
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of connections currently handed out
+     */
+    int inUse() {
+        lock.lock();
+        try {
+            return inUse;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of idle connections ready to be handed out
+     */
+    int idle() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of physical connections opened over the pool's lifetime
+     */
+    long created() {
+        lock.lock();
+        try {
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return one-line summary of the counters, for logging
+     */
+    String stats() {
+        lock.lock();
+        try {
+            return String.format("Pool: open=%d inUse=%d idle=%d waiting=%d created=%d",
+                    total, inUse, idle.size(), waiting, created);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Shutdown
+    // -------------------------------------------------------------------------
+
+    /**
+     * Closes all idle connections. Connections still in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        List<Idle> closing;
+        lock.lock();
+        try {
+            closed = true;
+            closing = new ArrayList<>(idle);
+            total -= closing.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Idle i : closing) {
+            discard(i.con());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Opens a new physical connection (with backoff) and counts it.
+     */
+    private Connection open() throws SQLException {
+        Connection con = App.connectWithRetry(url, user, pass, attempts, maxWait);
+        lock.lock();
+        try {
+            created++;
+        } finally {
+            lock.unlock();
+        }
+        return con;
+    }
+
+    /**
+     * Closes idle connections that have not been used for idleTimeout, keeping at least minSize.
+     */
+    private void evictIdle() {
+        long now = System.nanoTime();
+        List<Idle> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            // Oldest idle connections are at the tail of the deque
+            while (total > minSize && !idle.isEmpty() && now - idle.peekLast().since() > idleTimeoutNanos) {
+                evicted.add(idle.pollLast());
+                total--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Closed outside the lock, like every other discard
+        for (Idle old : evicted) {
+            discard(old.con());
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Evicted idle connection");
+            }
+        }
+    }
+
+    /**
+     * Cheap liveness test: a driver-level ping.
+     */
+    private static boolean isAlive(Connection con) {
+        try {
+            return con.isValid(VALIDATE_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes a physical connection, logging (not throwing) any error.
+     */
+    private static void discard(Connection con) {
+        try {
+            con.close();
+        } catch (SQLException e) {
+            if (log.isLoggable(Level.WARNING)) {
+                log.warning(() -> "Error closing pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Wraps a physical connection so that close() returns it to the pool.
+     * Every other call is passed straight through; calls that change session settings
+     * are noted so {@link #release} knows to reset them. Calling close() twice is harmless.
+     */
+    private Connection wrap(Connection physical) {
+        boolean[] returned = {false};
+        boolean[] touched = {false};
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                release(physical, touched[0]);
+                            }
+                            return null;
+                        }
+                        case "setAutoCommit", "setReadOnly" -> {
+                            if (returned[0]) {
+                                throw new SQLException("Connection has been returned to the pool");
+                            }
+                            touched[0] = true;
+                        }
+                        case "isClosed" -> {
+                            if (returned[0]) {
+                                return true;
+                            }
+                        }
+                        case "unwrap" -> {
+                            if (((Class<?>) args[0]).isInstance(physical)) {
+                                return physical;
+                            }
+                        }
+                        default -> {
+                            if (returned[0] && method.getDeclaringClass() != Object.class) {
+                                throw new SQLException("Connection has been returned to the pool");
+                            }
+                        }
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
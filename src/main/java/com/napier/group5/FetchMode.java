@@ -0,0 +1,114 @@
+package com.napier.group5;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * How Connector/J hands a query's rows to {@link App#readTable}.
+ *
+ *  - BUFFERED: the driver default; the whole result is read into client memory
+ *              before {@code executeQuery} returns. Best for small results.
+ *  - CURSOR:   a server-side cursor read {@code fetchSize} rows per round trip
+ *              ({@code useCursorFetch=true} on the URL). Bounded memory, but MySQL
+ *              materialises the result in a temporary table first.
+ *  - STREAM:   {@code setFetchSize(Integer.MIN_VALUE)}: rows are read off the socket
+ *              as the server sends them. Bounded memory and the first row arrives
+ *              soonest, but the connection can run nothing else until the result is
+ *              fully read.
+ *
+ * {@link Policy#choose} picks per report from its expected row count: small results
+ * are buffered, large ones (everything ranked over the whole city table) streamed.
+ *
+ * The driver side only bounds memory if the rows are not collected afterwards, so the
+ * sequential and parallel runners print STREAM and CURSOR reports row by row through
+ * {@link App#streamQuery(java.sql.Connection, Report, FetchMode)}. A report that has
+ * to be kept whole (a full ranking top-N reports are cut from, or any report while
+ * the result cache is on) is still read into a table by {@link App#readTable}, with
+ * the chosen mode only deciding how the rows travel.
+ */
+enum FetchMode {
+    BUFFERED, CURSOR, STREAM;
+
+    /**
+     * Row counts of the sample world database, the basis of {@link #expectedRows}.
+     */
+    static final long SAMPLE_CITIES = 4079;
+    static final long SAMPLE_COUNTRIES = 239;
+
+    /**
+     * Fetch settings for a run.
+     *
+     * @param fixed      Mode for every report, or null to choose per report
+     * @param streamRows Expected row count above which a report is streamed
+     * @param fetchSize  Rows per round trip in CURSOR mode
+     * @param scale      Size of the database relative to the sample (e.g. a generated world)
+     */
+    record Policy(FetchMode fixed, long streamRows, int fetchSize, double scale) {
+
+        /**
+         * Chooses per report, streaming results expected to exceed 1000 rows.
+         */
+        static final Policy DEFAULT = new Policy(null, 1000, 1000, 1);
+
+        /**
+         * @param mode "auto" (choose per report) or a mode name, any case
+         * @return the policy
+         * @throws IllegalArgumentException if {@code mode} is not recognised
+         */
+        static Policy parse(String mode, long streamRows, int fetchSize, double scale) {
+            FetchMode fixed = "auto".equalsIgnoreCase(mode) ? null : FetchMode.valueOf(mode.toUpperCase(Locale.ROOT));
+            return new Policy(fixed, streamRows, fetchSize, scale);
+        }
+
+        /**
+         * @return the mode for a report
+         */
+        FetchMode choose(Report r) {
+            if (fixed != null) {
+                return fixed;
+            }
+            return expectedRows(r, scale) > streamRows ? STREAM : BUFFERED;
+        }
+
+        /**
+         * Sets the statement up for {@code mode}; must be called before executing it.
+         */
+        void apply(PreparedStatement ps, FetchMode mode) throws SQLException {
+            switch (mode) {
+                case BUFFERED -> {
+                }
+                case CURSOR -> ps.setFetchSize(fetchSize);
+                case STREAM -> ps.setFetchSize(Integer.MIN_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Rough number of rows a report returns: the share of the city or country table its
+     * filter keeps on average (a continent holds about a sixth of all cities, a region a
+     * twenty-fifth), scaled from the sample database and capped at the report's LIMIT.
+     *
+     * @param r     Report
+     * @param scale Database size relative to the sample
+     * @return expected row count
+     */
+    static long expectedRows(Report r, double scale) {
+        long rows = switch (r.template()) {
+            case CITIES_WORLD -> SAMPLE_CITIES;
+            case CITIES_BY_CONTINENT -> SAMPLE_CITIES / 6;
+            case CITIES_BY_REGION -> SAMPLE_CITIES / 25;
+            case CITIES_BY_COUNTRY -> SAMPLE_CITIES / 100;
+            case CITIES_BY_DISTRICT -> SAMPLE_CITIES / 1000;
+            case COUNTRIES_WORLD, CAPITALS_WORLD, POPULATION_BY_COUNTRY -> SAMPLE_COUNTRIES;
+            case COUNTRIES_BY_CONTINENT, CAPITALS_BY_CONTINENT -> SAMPLE_COUNTRIES / 6;
+            case COUNTRIES_BY_REGION, CAPITALS_BY_REGION, POPULATION_BY_REGION -> SAMPLE_COUNTRIES / 10;
+            case POPULATION_BY_CONTINENT -> 7;
+            case WORLD_POPULATION, CONTINENT_POPULATION, REGION_POPULATION, COUNTRY_POPULATION,
+                 DISTRICT_POPULATION, CITY_POPULATION -> 1;
+            case LANGUAGE_SPEAKERS -> r.params().size();
+        };
+        long scaled = (long) Math.ceil(rows * scale);
+        return r.limit() > 0 ? Math.min(scaled, r.limit()) : scaled;
+    }
+}
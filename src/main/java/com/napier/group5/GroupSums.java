@@ -0,0 +1,168 @@
+package com.napier.group5;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Group-by kernel for the population reports (23–31).
+ *
+ * Group keys are dictionary-encoded once ({@link Keys}), so each group is a dense
+ * int ordinal and the sums are plain {@code long[]} slots: adding a row is a few
+ * array writes, with no map lookup and no boxing. Per group it keeps
+ *  - total: the population the percentages are measured against,
+ *  - part:  the population living in cities,
+ *  - rows / partRows: how many rows were added, and how many of them had a part
+ *    (a group with no city at all gets empty percentages, as SQL NULL would).
+ *
+ * {@link #table} turns the sums into the "Name | Total Population | in Cities (%) |
+ * not in Cities (%)" rows, with ROUND(x / y * 100, 2) and ROUND((1 - x / y) * 100, 2)
+ * computed exactly as MySQL does.
+ */
+final class GroupSums {
+
+    /**
+     * A text column dictionary-encoded to dense ordinals, in first-seen order.
+     *
+     * @param names    Distinct values; the index is the group ordinal
+     * @param ordinals Group ordinal of each row
+     */
+    record Keys(String[] names, int[] ordinals) {
+
+        /**
+         * @param column Value per row
+         * @return the encoded column
+         */
+        static Keys of(String[] column) {
+            Map<String, Integer> seen = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            int[] ordinals = new int[column.length];
+            for (int i = 0; i < column.length; i++) {
+                String v = column[i];
+                Integer g = seen.get(v);
+                if (g == null) {
+                    g = names.size();
+                    seen.put(v, g);
+                    names.add(v);
+                }
+                ordinals[i] = g;
+            }
+            return new Keys(names.toArray(new String[0]), ordinals);
+        }
+    }
+
+    private final String[] names;
+    private final long[] total;
+    private final long[] part;
+    private final int[] rows;
+    private final int[] partRows;
+
+    /**
+     * @param names Group names, indexed by ordinal
+     */
+    GroupSums(String[] names) {
+        this.names = names;
+        this.total = new long[names.length];
+        this.part = new long[names.length];
+        this.rows = new int[names.length];
+        this.partRows = new int[names.length];
+    }
+
+    /**
+     * Adds one row to a group.
+     *
+     * @param group   Group ordinal
+     * @param total   Population counted towards the total
+     * @param part    Population in cities
+     * @param hasPart false if the row has no city data (its part is ignored)
+     */
+    void add(int group, long total, long part, boolean hasPart) {
+        this.total[group] += total;
+        rows[group]++;
+        if (hasPart) {
+            this.part[group] += part;
+            partRows[group]++;
+        }
+    }
+
+    /**
+     * @return SUM(total) of a group
+     */
+    long total(int group) {
+        return total[group];
+    }
+
+    /**
+     * @return SUM(part) of a group
+     */
+    long part(int group) {
+        return part[group];
+    }
+
+    /**
+     * @return number of rows added to a group
+     */
+    int count(int group) {
+        return rows[group];
+    }
+
+    /**
+     * Builds the population table from every group that received rows.
+     *
+     * @param r          Report (title and columns)
+     * @param cityGroups false: groups of countries, showing and sorting by the total;
+     *                   true: groups of cities, showing and sorting by the city population
+     *                   (then "total" is the population of the countries the cities are in)
+     * @return the table, largest first; ties keep ordinal order
+     */
+    ReportTable table(Report r, boolean cityGroups) {
+        long[] shown = cityGroups ? part : total;
+        int[] order = IntStream.range(0, names.length)
+                .filter(g -> rows[g] > 0)
+                .boxed()
+                .sorted((a, b) -> Long.compare(shown[b], shown[a]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        List<String[]> out = new ArrayList<>(order.length);
+        for (int g : order) {
+            boolean known = partRows[g] > 0;
+            out.add(new String[]{
+                    names[g], Long.toString(shown[g]),
+                    known ? percent(part[g], total[g]) : "",
+                    known ? percentNot(part[g], total[g]) : ""
+            });
+        }
+        return new ReportTable(r.title(), r.cols(), out, new boolean[]{false, true, true, true});
+    }
+
+    /**
+     * ROUND(part / whole * 100, 2) as MySQL computes it, formatted like a DECIMAL cell.
+     * Division by zero gives an empty cell, as SQL NULL would.
+     */
+    static String percent(long part, long whole) {
+        return whole == 0 ? "" : CellFormatter.formatDecimal(share(part, whole));
+    }
+
+    /**
+     * ROUND((1 - part / whole) * 100, 2) as MySQL computes it: the quotient is rounded
+     * to 4 places before it is subtracted, so this is 100 minus {@link #percent},
+     * not the rounded share of {@code whole - part} (which differs on ties).
+     */
+    static String percentNot(long part, long whole) {
+        return whole == 0 ? "" : CellFormatter.formatDecimal(BigDecimal.valueOf(100).subtract(share(part, whole)));
+    }
+
+    /**
+     * part / whole rounded half-up to 4 places (MySQL's div_precision_increment for
+     * integer sums), times 100.
+     */
+    private static BigDecimal share(long part, long whole) {
+        return BigDecimal.valueOf(part).multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(whole), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,279 @@
+package com.napier.group5;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the report queries against the indexes that exist (REPORT_MODE=advise).
+ *
+ * Each report's query is run through {@code EXPLAIN FORMAT=JSON}, and the plan is
+ * searched for full table scans, filesorts and temporary tables. Every template
+ * has a list of indexes that serve its filter, join and sort columns (see
+ * {@link #recommended}). Indexes from that list which no existing index covers
+ * are reported as missing, and with {@code apply} they are created. The queries
+ * are then explained again, so the printed table compares the optimizer's cost
+ * for each report before and after.
+ *
+ * The sample {@code world} database has primary keys and the city/countrylanguage
+ * foreign key indexes only, so on scaled data most city reports sort the whole table.
+ */
+final class IndexAdvisor {
+
+    /**
+     * Logger for created indexes.
+     */
+    private static final Logger log = Logger.getLogger(IndexAdvisor.class.getName());
+
+    private static final Pattern QUERY_COST = Pattern.compile("\"query_cost\"\\s*:\\s*\"([0-9.]+)\"");
+    private static final Pattern TABLE_ACCESS =
+            Pattern.compile("\"table_name\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*\"access_type\"\\s*:\\s*\"(\\w+)\"");
+    private static final Pattern FILESORT = Pattern.compile("\"using_filesort\"\\s*:\\s*true");
+    private static final Pattern TEMPORARY = Pattern.compile("\"using_temporary_table\"\\s*:\\s*true");
+
+    /**
+     * A secondary index on one table.
+     *
+     * @param table   Table name
+     * @param columns Indexed columns, in order
+     */
+    record Index(String table, List<String> columns) {
+
+        Index(String table, String... columns) {
+            this(table, List.of(columns));
+        }
+
+        /**
+         * @return index name, e.g. {@code idx_city_countrycode_population}
+         */
+        String name() {
+            return ("idx_" + table + "_" + String.join("_", columns)).toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @return CREATE INDEX statement
+         */
+        String ddl() {
+            return "CREATE INDEX `" + name() + "` ON `" + table + "` ("
+                    + columns.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", ")) + ")";
+        }
+
+        @Override
+        public String toString() {
+            return table + "(" + String.join(", ", columns) + ")";
+        }
+    }
+
+    /**
+     * What EXPLAIN says about one query.
+     *
+     * @param cost       Optimizer's estimated query cost
+     * @param fullScans  Tables (aliases) read in full, i.e. access type ALL
+     * @param filesort   true if rows are sorted after reading
+     * @param temporary  true if an internal temporary table is used
+     */
+    record Plan(double cost, List<String> fullScans, boolean filesort, boolean temporary) {
+
+        /**
+         * @return short summary of the problems found, "-" if none
+         */
+        String issues() {
+            List<String> out = new ArrayList<>();
+            if (!fullScans.isEmpty()) {
+                out.add("full scan " + String.join(", ", fullScans));
+            }
+            if (filesort) {
+                out.add("filesort");
+            }
+            if (temporary) {
+                out.add("temporary");
+            }
+            return out.isEmpty() ? "-" : String.join("; ", out);
+        }
+    }
+
+    private static final Index COUNTRY_POPULATION = new Index("country", "Population");
+    private static final Index COUNTRY_CONTINENT = new Index("country", "Continent", "Population");
+    private static final Index COUNTRY_REGION = new Index("country", "Region", "Population");
+    private static final Index COUNTRY_NAME = new Index("country", "Name");
+    private static final Index CITY_POPULATION = new Index("city", "Population");
+    private static final Index CITY_COUNTRY = new Index("city", "CountryCode", "Population");
+    private static final Index CITY_DISTRICT = new Index("city", "District", "Population");
+    private static final Index CITY_NAME = new Index("city", "Name");
+    private static final Index LANGUAGE = new Index("countrylanguage", "Language", "Percentage");
+
+    private IndexAdvisor() {
+    }
+
+    /**
+     * Indexes that serve a template's filters, joins and sort order. City totals
+     * per country ({@code GROUP BY CountryCode}) are read from city(CountryCode, Population)
+     * alone; descending population order is an index scan read backwards.
+     *
+     * @param t Report template
+     * @return indexes, possibly none
+     */
+    static List<Index> recommended(ReportTemplate t) {
+        return switch (t) {
+            case COUNTRIES_WORLD, WORLD_POPULATION -> List.of(COUNTRY_POPULATION);
+            case COUNTRIES_BY_CONTINENT, CAPITALS_BY_CONTINENT -> List.of(COUNTRY_CONTINENT);
+            case COUNTRIES_BY_REGION, CAPITALS_BY_REGION -> List.of(COUNTRY_REGION);
+            case CITIES_WORLD -> List.of(CITY_POPULATION);
+            case CITIES_BY_CONTINENT, CONTINENT_POPULATION -> List.of(COUNTRY_CONTINENT, CITY_COUNTRY);
+            case CITIES_BY_REGION, REGION_POPULATION -> List.of(COUNTRY_REGION, CITY_COUNTRY);
+            case CITIES_BY_COUNTRY, COUNTRY_POPULATION -> List.of(COUNTRY_NAME, CITY_COUNTRY);
+            case CITIES_BY_DISTRICT, DISTRICT_POPULATION -> List.of(CITY_DISTRICT);
+            case CITY_POPULATION -> List.of(CITY_NAME);
+            case POPULATION_BY_CONTINENT, POPULATION_BY_REGION, POPULATION_BY_COUNTRY -> List.of(CITY_COUNTRY);
+            case LANGUAGE_SPEAKERS -> List.of(LANGUAGE);
+            case CAPITALS_WORLD -> List.of();
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Advice
+    // -------------------------------------------------------------------------
+
+    /**
+     * Explains every report, optionally creates the missing indexes and explains again.
+     *
+     * @param con     Open JDBC connection (needs the INDEX privilege when applying)
+     * @param reports Reports to check
+     * @param apply   true to create the missing indexes
+     * @return one row per report: cost before and after, problems before and after,
+     *         and the indexes created (or missing, when not applying)
+     * @throws SQLException if EXPLAIN or CREATE INDEX fails
+     */
+    static ReportTable advise(Connection con, List<Report> reports, boolean apply) throws SQLException {
+        List<Plan> before = new ArrayList<>(reports.size());
+        for (Report r : reports) {
+            before.add(explain(con, r));
+        }
+
+        // Missing indexes, each checked and created once however many reports want it
+        Map<Index, Boolean> missing = new LinkedHashMap<>();
+        for (Report r : reports) {
+            for (Index ix : recommended(r.template())) {
+                if (!missing.containsKey(ix)) {
+                    missing.put(ix, !exists(con, ix));
+                }
+            }
+        }
+        Set<String> changed = new TreeSet<>();
+        if (apply) {
+            try (Statement st = con.createStatement()) {
+                for (Map.Entry<Index, Boolean> e : missing.entrySet()) {
+                    if (e.getValue()) {
+                        st.execute(e.getKey().ddl());
+                        changed.add(e.getKey().table());
+                        if (log.isLoggable(Level.INFO)) {
+                            log.info(() -> "Created index " + e.getKey().name() + " on " + e.getKey());
+                        }
+                    }
+                }
+                if (!changed.isEmpty()) {
+                    st.execute("ANALYZE TABLE " + String.join(", ", changed));
+                }
+            }
+        }
+
+        List<String[]> rows = new ArrayList<>(reports.size());
+        for (int i = 0; i < reports.size(); i++) {
+            Report r = reports.get(i);
+            Plan b = before.get(i);
+            Plan a = apply && !changed.isEmpty() ? explain(con, r) : b;
+            Set<String> wanted = new LinkedHashSet<>();
+            for (Index ix : recommended(r.template())) {
+                if (missing.get(ix)) {
+                    wanted.add(ix.toString());
+                }
+            }
+            rows.add(new String[]{
+                    r.number() > 0 ? Integer.toString(r.number()) : r.title(),
+                    CellFormatter.formatDecimal(b.cost()),
+                    CellFormatter.formatDecimal(a.cost()),
+                    b.issues(),
+                    a.issues(),
+                    wanted.isEmpty() ? "-" : (apply ? "created " : "missing ") + String.join(", ", wanted)
+            });
+        }
+        return new ReportTable(apply ? "Index advisor (indexes created)" : "Index advisor (dry run)",
+                new String[]{"Report", "Cost before", "Cost after", "Before", "After", "Indexes"},
+                rows, new boolean[]{false, true, true, false, false, false});
+    }
+
+    /**
+     * Runs {@code EXPLAIN FORMAT=JSON} on a report's query with its filter values bound.
+     *
+     * @param con Open JDBC connection
+     * @param r   Report
+     * @return the parsed plan
+     * @throws SQLException if EXPLAIN fails
+     */
+    static Plan explain(Connection con, Report r) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("EXPLAIN FORMAT=JSON " + r.sql())) {
+            App.bind(ps, r.binds());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? parse(rs.getString(1)) : new Plan(0, List.of(), false, false);
+            }
+        }
+    }
+
+    /**
+     * Extracts cost and problems from MySQL's JSON plan. Only the few keys needed are
+     * read, so a regular expression is enough.
+     *
+     * @param json EXPLAIN FORMAT=JSON output
+     * @return the plan; derived tables ({@code <derived2>}) are not counted as full scans
+     */
+    static Plan parse(String json) {
+        Matcher cost = QUERY_COST.matcher(json);
+        double total = cost.find() ? Double.parseDouble(cost.group(1)) : 0;
+
+        List<String> scans = new ArrayList<>();
+        Matcher m = TABLE_ACCESS.matcher(json);
+        while (m.find()) {
+            if ("ALL".equals(m.group(2)) && !m.group(1).startsWith("<") && !scans.contains(m.group(1))) {
+                scans.add(m.group(1));
+            }
+        }
+        return new Plan(total, scans, FILESORT.matcher(json).find(), TEMPORARY.matcher(json).find());
+    }
+
+    /**
+     * @return true if some index on the table starts with the index's columns
+     */
+    static boolean exists(Connection con, Index ix) throws SQLException {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT INDEX_NAME, COLUMN_NAME FROM information_schema.STATISTICS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? "
+                        + "ORDER BY INDEX_NAME, SEQ_IN_INDEX")) {
+            ps.setString(1, ix.table());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    indexes.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                            .add(rs.getString(2).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        List<String> wanted = ix.columns().stream().map(c -> c.toLowerCase(Locale.ROOT)).toList();
+        return indexes.values().stream()
+                .anyMatch(cols -> cols.size() >= wanted.size() && cols.subList(0, wanted.size()).equals(wanted));
+    }
+}
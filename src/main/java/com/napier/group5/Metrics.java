@@ -0,0 +1,330 @@
+package com.napier.group5;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-report phase timings (REPORT_METRICS=1).
+ *
+ * For every report title, each {@link Phase} gets a latency histogram with one
+ * sample per run of the report, plus running totals of rows fetched and bytes
+ * rendered. At the end of a run the histograms are printed as a summary table
+ * ({@link #summary()}) and can be written as JSON ({@link #toJson()}); the HTTP
+ * server exposes the same JSON under {@code /metrics}.
+ *
+ * Work that is spread over the row loop (fetching and formatting) is summed per run
+ * by the caller and recorded once, so the cost here is a few calls per report.
+ */
+final class Metrics {
+
+    /**
+     * Where the time of a report goes.
+     */
+    enum Phase {
+        /** Borrowing (or opening) a connection. */
+        CONNECT,
+        /** prepareStatement, binding and executeQuery. */
+        EXECUTE,
+        /** ResultSet.next() over the whole result. */
+        FETCH,
+        /** Turning column values into cell text. */
+        FORMAT,
+        /** Rendering the table to the report sink. */
+        PRINT
+    }
+
+    /**
+     * Label for connection time not tied to a single report.
+     */
+    static final String RUN = "(run)";
+
+    /**
+     * Latency histogram with logarithmic buckets, as in HdrHistogram: exact below
+     * {@code 2^SUB_BITS} nanoseconds, then {@code 2^(SUB_BITS-1)} linear buckets per
+     * power of two, so any recorded value is known to within about 6%.
+     */
+    static final class Histogram {
+
+        private static final int SUB_BITS = 5;
+        private static final int LINEAR = 1 << SUB_BITS;          // 32 exact buckets
+        private static final int PER_OCTAVE = 1 << (SUB_BITS - 1); // 16 buckets per power of two
+
+        private final long[] counts = new long[LINEAR + (63 - SUB_BITS) * PER_OCTAVE];
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        /**
+         * @param nanos Value to add (negative values count as 0)
+         */
+        synchronized void record(long nanos) {
+            long v = Math.max(0, nanos);
+            counts[bucket(v)]++;
+            count++;
+            sum += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+
+        static int bucket(long v) {
+            if (v < LINEAR) {
+                return (int) v;
+            }
+            int high = 63 - Long.numberOfLeadingZeros(v);         // >= SUB_BITS
+            int shift = high - (SUB_BITS - 1);
+            int sub = (int) (v >>> shift) - PER_OCTAVE;            // 0 .. PER_OCTAVE-1
+            return LINEAR + (high - SUB_BITS) * PER_OCTAVE + sub;
+        }
+
+        /**
+         * @return the largest value that falls into {@code bucket}
+         */
+        static long upperBound(int bucket) {
+            if (bucket < LINEAR) {
+                return bucket;
+            }
+            int high = SUB_BITS + (bucket - LINEAR) / PER_OCTAVE;
+            int shift = high - (SUB_BITS - 1);
+            long top = PER_OCTAVE + (bucket - LINEAR) % PER_OCTAVE;
+            return ((top + 1) << shift) - 1;
+        }
+
+        /**
+         * @param q Quantile between 0 and 1
+         * @return value at the quantile (bucket upper bound, capped at the maximum), 0 if empty
+         */
+        synchronized long percentile(double q) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int b = 0; b < counts.length; b++) {
+                seen += counts[b];
+                if (seen >= rank) {
+                    return Math.min(max, upperBound(b));
+                }
+            }
+            return max;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized long max() {
+            return max;
+        }
+
+        synchronized double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        synchronized String toJson() {
+            StringBuilder out = new StringBuilder(String.format(Locale.ROOT,
+                    "{\"count\":%d,\"min\":%d,\"max\":%d,\"mean\":%.0f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"buckets\":[",
+                    count, count == 0 ? 0 : min, max, mean(), percentile(0.5), percentile(0.9), percentile(0.99)));
+            boolean first = true;
+            for (int b = 0; b < counts.length; b++) {
+                if (counts[b] > 0) {
+                    out.append(first ? "" : ",").append('[').append(upperBound(b)).append(',').append(counts[b]).append(']');
+                    first = false;
+                }
+            }
+            return out.append("]}").toString();
+        }
+    }
+
+    /**
+     * Everything recorded for one report title.
+     */
+    private static final class Entry {
+        final Histogram[] phases = new Histogram[Phase.values().length];
+        long rows;
+        long bytes;
+
+        Entry() {
+            for (int p = 0; p < phases.length; p++) {
+                phases[p] = new Histogram();
+            }
+        }
+    }
+
+    /**
+     * Passes lines through to another sink, counting the time spent writing and
+     * the characters written (line ends included). Closing it only flushes.
+     */
+    static final class TimedSink implements ReportSink {
+
+        private static final int LINE_END = System.lineSeparator().length();
+
+        private final ReportSink out;
+        private long nanos;
+        private long chars;
+
+        TimedSink(ReportSink out) {
+            this.out = out;
+        }
+
+        @Override
+        public void line(String line) {
+            long start = System.nanoTime();
+            out.line(line);
+            nanos += System.nanoTime() - start;
+            chars += line.length() + LINE_END;
+        }
+
+        @Override
+        public void flush() {
+            long start = System.nanoTime();
+            out.flush();
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+        long nanos() {
+            return nanos;
+        }
+
+        long chars() {
+            return chars;
+        }
+    }
+
+    // Insertion order = order in which reports first ran
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    // -------------------------------------------------------------------------
+    // Recording
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds one sample to a report's phase histogram.
+     *
+     * @param report Report title (or {@link #RUN})
+     * @param phase  Phase
+     * @param nanos  Elapsed time
+     */
+    void record(String report, Phase phase, long nanos) {
+        entry(report).phases[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Adds to a report's row count.
+     */
+    void rows(String report, long rows) {
+        Entry e = entry(report);
+        synchronized (e) {
+            e.rows += rows;
+        }
+    }
+
+    /**
+     * Adds to a report's rendered size (characters written, including line ends).
+     */
+    void bytes(String report, long bytes) {
+        Entry e = entry(report);
+        synchronized (e) {
+            e.bytes += bytes;
+        }
+    }
+
+    private synchronized Entry entry(String report) {
+        return entries.computeIfAbsent(report, k -> new Entry());
+    }
+
+    /**
+     * @return the histogram for a report's phase, null if nothing was recorded for the report
+     */
+    synchronized Histogram histogram(String report, Phase phase) {
+        Entry e = entries.get(report);
+        return e == null ? null : e.phases[phase.ordinal()];
+    }
+
+    // -------------------------------------------------------------------------
+    // Output
+    // -------------------------------------------------------------------------
+
+    /**
+     * One row per report: how often it ran, rows and bytes per run, then the median
+     * and 99th percentile of each phase in milliseconds ("p50 / p99").
+     *
+     * @return the summary, ready for {@link App#printTable(ReportTable)}
+     */
+    ReportTable summary() {
+        Phase[] phases = Phase.values();
+        String[] headers = new String[4 + phases.length];
+        boolean[] right = new boolean[headers.length];
+        headers[0] = "Report";
+        headers[1] = "Runs";
+        headers[2] = "Rows/run";
+        headers[3] = "Bytes/run";
+        for (int p = 0; p < phases.length; p++) {
+            headers[4 + p] = phases[p].name().charAt(0) + phases[p].name().substring(1).toLowerCase(Locale.ROOT)
+                    + " p50/p99 ms";
+        }
+        for (int c = 1; c < right.length; c++) {
+            right[c] = true;
+        }
+
+        List<String[]> rows = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : snapshot().entrySet()) {
+            Entry v = e.getValue();
+            long runs = 0;
+            for (Histogram h : v.phases) {
+                runs = Math.max(runs, h.count());
+            }
+            String[] r = new String[headers.length];
+            r[0] = e.getKey();
+            r[1] = Long.toString(runs);
+            synchronized (v) {
+                r[2] = runs == 0 ? "" : Long.toString(v.rows / runs);
+                r[3] = runs == 0 ? "" : Long.toString(v.bytes / runs);
+            }
+            for (int p = 0; p < phases.length; p++) {
+                Histogram h = v.phases[p];
+                r[4 + p] = h.count() == 0 ? "" : millis(h.percentile(0.5)) + " / " + millis(h.percentile(0.99));
+            }
+            rows.add(r);
+        }
+        return new ReportTable("Report timings", headers, rows, right);
+    }
+
+    /**
+     * @return every report's histograms, rows and bytes as a JSON object keyed by report title
+     */
+    String toJson() {
+        StringBuilder out = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, Entry> e : snapshot().entrySet()) {
+            Entry v = e.getValue();
+            out.append(first ? "\n" : ",\n").append(ReportServer.quote(e.getKey())).append(":{");
+            synchronized (v) {
+                out.append("\"rows\":").append(v.rows).append(",\"bytes\":").append(v.bytes);
+            }
+            for (Phase p : Phase.values()) {
+                out.append(",\"").append(p.name().toLowerCase(Locale.ROOT)).append("\":")
+                        .append(v.phases[p.ordinal()].toJson());
+            }
+            out.append('}');
+            first = false;
+        }
+        return out.append("\n}\n").toString();
+    }
+
+    private synchronized Map<String, Entry> snapshot() {
+        return new LinkedHashMap<>(entries);
+    }
+
+    private static String millis(long nanos) {
+        return CellFormatter.formatDecimal(nanos / 1e6);
+    }
+}
@@ -0,0 +1,183 @@
+package com.napier.group5;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * A sorted lookup index over one text column (country names, city names, districts).
+ *
+ * The index is only an {@code int[]} of row ordinals ordered by the folded value
+ * (see {@link #fold}; ties in row order); the values themselves stay where they are,
+ * e.g. in the off-heap {@link CityColumns}, and are read through {@code value} while
+ * searching. A lookup is a binary search, so about 20 reads for a million rows:
+ *  - {@link #find}:    equality ignoring case and accents, close to how the schema's
+ *                      utf8mb4_0900_ai_ci collation compares
+ *  - {@link #exact}:   case- and accent-sensitive equality
+ *  - {@link #prefix}:  every row starting with a prefix, in alphabetical order
+ *  - {@link #suggest}: distinct values starting with a prefix (type-ahead)
+ *
+ * Built once and never changed; safe to share between threads if {@code value} is.
+ */
+final class NameIndex {
+
+    /**
+     * Combining marks left by canonical decomposition (the accents).
+     */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final IntFunction<String> value;
+    private final int[] order;
+
+    private NameIndex(IntFunction<String> value, int[] order) {
+        this.value = value;
+        this.order = order;
+    }
+
+    /**
+     * Sorts the rows by folded value. The folded keys are only held while sorting.
+     *
+     * @param rows  Number of rows
+     * @param value Value of each row (null is treated as empty)
+     * @return the index
+     */
+    static NameIndex build(int rows, IntFunction<String> value) {
+        String[] keys = new String[rows];
+        for (int row = 0; row < rows; row++) {
+            keys[row] = key(value.apply(row));
+        }
+        // Stable sort: equal keys keep row order
+        int[] order = IntStream.range(0, rows).boxed()
+                .sorted((a, b) -> keys[a].compareTo(keys[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new NameIndex(row -> {
+            String v = value.apply(row);
+            return v == null ? "" : v;
+        }, order);
+    }
+
+    /**
+     * @return number of rows indexed
+     */
+    int size() {
+        return order.length;
+    }
+
+    /**
+     * @return rows whose value equals {@code name} ignoring case and accents, in row order
+     */
+    int[] find(String name) {
+        String k = key(name);
+        int from = lowerBound(k);
+        int to = from;
+        while (to < order.length && keyAt(to).equals(k)) {
+            to++;
+        }
+        return Arrays.copyOfRange(order, from, to);
+    }
+
+    /**
+     * @return rows whose value equals {@code name} exactly, in row order
+     */
+    int[] exact(String name) {
+        return Arrays.stream(find(name)).filter(row -> value.apply(row).equals(name)).toArray();
+    }
+
+    /**
+     * Rows whose value starts with {@code prefix}, ignoring case and accents.
+     *
+     * @param prefix Prefix ("" matches everything)
+     * @param limit  Maximum number of rows, 0 for no limit
+     * @return matching rows, alphabetically by value
+     */
+    int[] prefix(String prefix, int limit) {
+        String p = key(prefix);
+        int max = limit > 0 ? limit : Integer.MAX_VALUE;
+        int from = lowerBound(p);
+        int to = from;
+        while (to < order.length && to - from < max && keyAt(to).startsWith(p)) {
+            to++;
+        }
+        return Arrays.copyOfRange(order, from, to);
+    }
+
+    /**
+     * Type-ahead: the distinct values starting with {@code prefix}, ignoring case and accents.
+     * Values differing only in case or accents are listed once, as first loaded.
+     *
+     * @param prefix Typed so far
+     * @param limit  Maximum number of suggestions (at least 1)
+     * @return values, alphabetically
+     */
+    List<String> suggest(String prefix, int limit) {
+        String p = key(prefix);
+        List<String> out = new ArrayList<>();
+        String last = null;
+        for (int i = lowerBound(p); i < order.length && out.size() < limit; i++) {
+            String k = keyAt(i);
+            if (!k.startsWith(p)) {
+                break;
+            }
+            if (!k.equals(last)) {
+                out.add(value.apply(order[i]));
+                last = k;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return the first position whose key is not less than {@code k}
+     */
+    private int lowerBound(String k) {
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keyAt(mid).compareTo(k) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the key at a sorted position
+     */
+    private String keyAt(int position) {
+        return key(value.apply(order[position]));
+    }
+
+    private static String key(String s) {
+        return fold(s);
+    }
+
+    /**
+     * Comparison key ignoring case and accents: decomposed, combining marks dropped,
+     * lower-cased. This matches utf8mb4_0900_ai_ci for accented letters ("São" = "sao"),
+     * but not for its expansions such as "ß" = "ss".
+     *
+     * @param s Text (null is treated as empty)
+     * @return the folded text
+     */
+    static String fold(String s) {
+        if (s == null) {
+            return "";
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("")
+                        .toLowerCase(Locale.ROOT);
+            }
+        }
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package com.napier.group5;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One entry of the report suite: where it is printed, what it is called,
+ * which {@link ReportTemplate} produces it and with which filter values.
+ *
+ * @param number   Report number as used in the requirements (1–32), 0 for ad-hoc reports
+ * @param section  Section heading the report is printed under
+ * @param title    Title printed above the table
+ * @param template SQL template
+ * @param params   Filter values bound to the template's {@code ?} placeholders, in order
+ * @param limit    Top-N limit for ranked templates, 0 for all rows
+ */
+record Report(int number, String section, String title, ReportTemplate template, List<Object> params, int limit) {
+
+    Report {
+        params = List.copyOf(params);
+        if (limit < 0 || (limit > 0 && !template.ranked())) {
+            throw new IllegalArgumentException("Invalid limit " + limit + " for " + template);
+        }
+        int expected = template.paramCount();
+        if (expected < 0 ? params.isEmpty() : params.size() != expected) {
+            throw new IllegalArgumentException(template + " takes "
+                    + (expected < 0 ? "at least 1" : Integer.toString(expected))
+                    + " filter value(s), got " + params.size());
+        }
+    }
+
+    /**
+     * @return SQL text with placeholders, plus {@code LIMIT ?} for a top-N report
+     */
+    String sql() {
+        String sql = template.sql(params.size());
+        return limit > 0 ? sql + "LIMIT ?\n" : sql;
+    }
+
+    /**
+     * @return values to bind, in placeholder order (filter values, then the limit)
+     */
+    List<Object> binds() {
+        if (limit == 0) {
+            return params;
+        }
+        List<Object> all = new ArrayList<>(params);
+        all.add(limit);
+        return all;
+    }
+
+    /**
+     * @return column labels to display and fetch
+     */
+    String[] cols() {
+        return template.cols();
+    }
+}
@@ -0,0 +1,129 @@
+package com.napier.group5;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.napier.group5.ReportTemplate.*;
+
+/**
+ * The 32 required reports in the order they are printed.
+ * Each one is a {@link ReportTemplate} plus its filter values and top-N limit,
+ * so any runner (sequential, parallel, in-memory, ...) can work through the same
+ * list, and the same templates can be run for any other continent, region,
+ * country, district or N with {@link #adHoc}.
+ */
+final class ReportCatalog {
+
+    // Section headings, printed once before the first report of each section
+    static final String COUNTRY = "Country Reports";
+    static final String CITY = "City Reports";
+    static final String CAPITAL = "Capital City Reports";
+    static final String POPULATION = "Population Distribution and Population by Location";
+    static final String LANGUAGE = "Language Reports";
+
+    private ReportCatalog() {
+    }
+
+    /**
+     * @return all 32 reports, ordered by report number
+     */
+    static List<Report> all() {
+        return List.of(
+                // Country reports
+                report(1, COUNTRY, "1. All Countries by Population (World)", COUNTRIES_WORLD, 0),
+                report(2, COUNTRY, "2. Countries by Population (Continent = Asia)", COUNTRIES_BY_CONTINENT, 0, "Asia"),
+                report(3, COUNTRY, "3. Countries by Population (Region = Caribbean)", COUNTRIES_BY_REGION, 0, "Caribbean"),
+                report(4, COUNTRY, "4. Top 10 Countries (World)", COUNTRIES_WORLD, 10),
+                report(5, COUNTRY, "5. Top 10 Countries (Continent = Europe)", COUNTRIES_BY_CONTINENT, 10, "Europe"),
+                report(6, COUNTRY, "6. Top 10 Countries (Region = Western Europe)", COUNTRIES_BY_REGION, 10, "Western Europe"),
+
+                // City reports
+                report(7, CITY, "7. All cities in world", CITIES_WORLD, 0),
+                report(8, CITY, "8. Cities by continent (Africa)", CITIES_BY_CONTINENT, 0, "Africa"),
+                report(9, CITY, "9. Cities by region (Central Africa)", CITIES_BY_REGION, 0, "Central Africa"),
+                report(10, CITY, "10. Cities by country (Argentina)", CITIES_BY_COUNTRY, 0, "Argentina"),
+                report(11, CITY, "11. Cities by district (Limburg)", CITIES_BY_DISTRICT, 0, "Limburg"),
+                report(12, CITY, "12. Top 10 cities in world", CITIES_WORLD, 10),
+                report(13, CITY, "13. Top 10 cities by continent (Africa)", CITIES_BY_CONTINENT, 10, "Africa"),
+                report(14, CITY, "14. Top 10 cities by region (Central Africa)", CITIES_BY_REGION, 10, "Central Africa"),
+                report(15, CITY, "15. Top 10 cities by country (Argentina)", CITIES_BY_COUNTRY, 10, "Argentina"),
+                report(16, CITY, "16. Top 10 cities by district (Limburg)", CITIES_BY_DISTRICT, 10, "Limburg"),
+
+                // Capital city reports
+                report(17, CAPITAL, "17. All capital cities", CAPITALS_WORLD, 0),
+                report(18, CAPITAL, "18. Capitals by continent (Asia)", CAPITALS_BY_CONTINENT, 0, "Asia"),
+                report(19, CAPITAL, "19. Capitals by region (Eastern Asia)", CAPITALS_BY_REGION, 0, "Eastern Asia"),
+                report(20, CAPITAL, "20. Top 10 capitals in world", CAPITALS_WORLD, 10),
+                report(21, CAPITAL, "21. Top 10 capitals by continent (Africa)", CAPITALS_BY_CONTINENT, 10, "Africa"),
+                report(22, CAPITAL, "22. Top 10 capitals by region (Western Europe)", CAPITALS_BY_REGION, 10, "Western Europe"),
+
+                // Population distribution and population by location
+                report(23, POPULATION, "23. Population Report (Continent)", POPULATION_BY_CONTINENT, 0),
+                report(24, POPULATION, "24. Population Report (Region)", POPULATION_BY_REGION, 0),
+                report(25, POPULATION, "25. Population Report (Country)", POPULATION_BY_COUNTRY, 0),
+                report(26, POPULATION, "26. World population", WORLD_POPULATION, 0),
+                report(27, POPULATION, "27. Continent population (Africa)", CONTINENT_POPULATION, 0, "Africa"),
+                report(28, POPULATION, "28. Region population (Central Africa)", REGION_POPULATION, 0, "Central Africa"),
+                report(29, POPULATION, "29. Country population (Spain)", COUNTRY_POPULATION, 0, "Spain"),
+                report(30, POPULATION, "30. District population (Limburg)", DISTRICT_POPULATION, 0, "Limburg"),
+                report(31, POPULATION, "31. City population (London)", CITY_POPULATION, 0, "London"),
+
+                // Language reports
+                report(32, LANGUAGE, "32. Population by language (Chinese, English, Hindi, Spanish, Arabic)",
+                        LANGUAGE_SPEAKERS, 0, "Chinese", "English", "Hindi", "Spanish", "Arabic")
+        );
+    }
+
+    /**
+     * Builds a report outside the fixed suite, e.g. "top 5 cities in Brazil".
+     * The title is derived from the template label, the filter values and the limit.
+     *
+     * @param template SQL template
+     * @param limit    Top-N limit (ranked templates only), 0 for all rows
+     * @param params   Filter values for the template's placeholders
+     * @return an unnumbered report
+     */
+    static Report adHoc(ReportTemplate template, int limit, Object... params) {
+        String title = (limit > 0 ? "Top " + limit + ": " : "") + template.label()
+                + (params.length > 0
+                   ? " (" + List.of(params).stream().map(String::valueOf).collect(Collectors.joining(", ")) + ")"
+                   : "");
+        return new Report(0, template.label(), title, template, List.of(params), limit);
+    }
+
+    /**
+     * Picks reports by number, keeping their order in {@code reports}.
+     *
+     * @param reports Reports to choose from
+     * @param spec    Comma-separated numbers and ranges, e.g. "1-6,23,32"; blank keeps everything
+     * @return the matching reports
+     * @throws IllegalArgumentException if the spec cannot be parsed
+     */
+    static List<Report> select(List<Report> reports, String spec) {
+        if (spec == null || spec.isBlank()) {
+            return reports;
+        }
+        BitSet wanted = new BitSet();
+        for (String part : spec.split(",")) {
+            String p = part.strip();
+            int dash = p.indexOf('-', 1);
+            try {
+                if (dash < 0) {
+                    wanted.set(Integer.parseInt(p));
+                } else {
+                    wanted.set(Integer.parseInt(p.substring(0, dash).strip()),
+                            Integer.parseInt(p.substring(dash + 1).strip()) + 1);
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid report selection: " + spec, e);
+            }
+        }
+        return reports.stream().filter(r -> wanted.get(r.number())).toList();
+    }
+
+    private static Report report(int number, String section, String title,
+                                 ReportTemplate template, int limit, Object... params) {
+        return new Report(number, section, title, template, List.of(params), limit);
+    }
+}
@@ -0,0 +1,146 @@
+package com.napier.group5;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Reads the ranked country, city and capital reports one page at a time.
+ *
+ * Each page is one query that starts after the last row of the previous page
+ * (keyset pagination on population and primary key, see {@link ReportTemplate#pageSql}),
+ * so neither the database nor this process ever handles more than a page of rows,
+ * and fetching a late page is no more expensive than the first.
+ *
+ * The position between pages is handed to callers as an opaque continuation token.
+ */
+final class ReportPager {
+
+    /**
+     * Upper bound on the page size, so a single page can never be a whole table.
+     */
+    static final int MAX_PAGE_SIZE = 10_000;
+
+    /**
+     * One page of a report.
+     *
+     * @param table Rows of this page, with the report's title and columns
+     * @param next  Token for the following page, null if this is the last page
+     */
+    record Page(ReportTable table, String next) {
+
+        /**
+         * @return true if there are no further pages
+         */
+        boolean last() {
+            return next == null;
+        }
+    }
+
+    private ReportPager() {
+    }
+
+    /**
+     * Fetches one page of a ranked report.
+     *
+     * @param con      Open JDBC connection
+     * @param r        Ranked report without a top-N limit
+     * @param pageSize Rows per page (1 to {@link #MAX_PAGE_SIZE})
+     * @param token    Continuation token from the previous page, null for the first page
+     * @return the page and the token for the next one
+     * @throws SQLException             if the query fails
+     * @throws IllegalArgumentException if the report cannot be paged, the page size is
+     *                                  out of range or the token is malformed
+     */
+    static Page fetch(Connection con, Report r, int pageSize, String token) throws SQLException {
+        if (!r.template().ranked() || r.limit() > 0) {
+            throw new IllegalArgumentException("Only ranked reports without a limit can be paged: " + r.title());
+        }
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        ReportTemplate.Keyset keyset = r.template().keyset();
+
+        List<Object> binds = new ArrayList<>(r.params());
+        if (token != null) {
+            Cursor after = Cursor.decode(token, keyset.numericKey());
+            binds.add(after.population());
+            binds.add(after.population());
+            binds.add(after.key());
+        }
+        // One extra row tells whether another page follows, without a second query
+        binds.add(pageSize + 1);
+
+        String sql = r.template().pageSql(token != null);
+        String[] cols = r.cols();
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            App.bind(ps, binds);
+            try (ResultSet rs = ps.executeQuery()) {
+                ColumnPlan plan = ColumnPlan.of(sql, rs.getMetaData(), cols);
+                int population = rs.findColumn("Population");
+                int key = rs.findColumn(ReportTemplate.PAGE_KEY);
+
+                List<String[]> rows = new ArrayList<>(Math.min(pageSize, 1024));
+                Cursor last = null;
+                boolean more = false;
+                while (rs.next()) {
+                    if (rows.size() == pageSize) {
+                        more = true;
+                        break;
+                    }
+                    rows.add(plan.format(rs));
+                    last = new Cursor(rs.getLong(population),
+                            keyset.numericKey() ? (Object) rs.getLong(key) : rs.getString(key));
+                }
+                ReportTable table = new ReportTable(r.title(), cols, rows, plan.rightAlign());
+                return new Page(table, more ? last.encode() : null);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Continuation tokens
+    // -------------------------------------------------------------------------
+
+    /**
+     * Position after the last row of a page: its population and tie-breaker key.
+     *
+     * The token is the two values as {@code population:key}, Base64 (URL-safe) encoded
+     * so it can be passed around without escaping.
+     */
+    record Cursor(long population, Object key) {
+
+        /**
+         * @return the continuation token for this position
+         */
+        String encode() {
+            String raw = population + ":" + key;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Parses a continuation token.
+         *
+         * @param token      Token from {@link #encode()}
+         * @param numericKey true if the key is an integer
+         * @return the position
+         * @throws IllegalArgumentException if the token is malformed
+         */
+        static Cursor decode(String token, boolean numericKey) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int colon = raw.indexOf(':');
+                long population = Long.parseLong(raw.substring(0, colon));
+                String key = raw.substring(colon + 1);
+                return new Cursor(population, numericKey ? (Object) Long.parseLong(key) : key);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid page token: " + token, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.napier.group5;
+
+import java.util.List;
+
+/**
+ * Works out which reports of a run can be answered without a query of their own.
+ *
+ * A top-N report (e.g. "Top 10 cities in Africa") is exactly the first N rows of
+ * the full ranking with the same template and filter values ("All cities in
+ * Africa"). When both are in the same run, only the full ranking is fetched and
+ * the top-N report is cut from its rows with {@link #prefix}.
+ *
+ * A top-N report whose filter compares a column the unfiltered ranking displays
+ * (e.g. "Top 10 countries in Europe", filtered on Continent) can also be cut from
+ * that ranking ("All countries in the world"): its rows are filtered on the column,
+ * ignoring case and accents, before the first N are taken.
+ * City and capital reports do not display the continent or region they filter on,
+ * so only an identical filter value matches for them.
+ *
+ * A top-N report without a matching full ranking still runs its own {@code LIMIT ?}
+ * query, so only N rows are ever transferred for it.
+ *
+ * Rows that tie on population may come back in any order from MySQL, so a derived
+ * top-N can differ from a separate LIMIT query only in the order of tied rows.
+ */
+final class ReportPlan {
+
+    // Index of the full ranking each report is cut from, -1 if it needs its own query
+    private final int[] source;
+    // True for reports that at least one other report is cut from
+    private final boolean[] shared;
+    // Last position at which each report's rows are printed, its own or a derived report's
+    private final int[] lastUse;
+    private final int derived;
+
+    /**
+     * @param reports Reports of one run, in print order
+     */
+    ReportPlan(List<Report> reports) {
+        int n = reports.size();
+        this.source = new int[n];
+        this.shared = new boolean[n];
+        this.lastUse = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            lastUse[i] = Math.max(lastUse[i], i);
+            source[i] = fullRankingFor(reports, reports.get(i));
+            if (source[i] >= 0) {
+                shared[source[i]] = true;
+                lastUse[source[i]] = Math.max(lastUse[source[i]], i);
+                count++;
+            }
+        }
+        this.derived = count;
+    }
+
+    /**
+     * @param i Report index
+     * @return index of the full ranking report {@code i} is cut from, or -1 if it needs a query
+     */
+    int sourceOf(int i) {
+        return source[i];
+    }
+
+    /**
+     * @param i Report index
+     * @return true if other reports are cut from report {@code i}, so its rows must be kept
+     */
+    boolean isShared(int i) {
+        return shared[i];
+    }
+
+    /**
+     * @param i Report index
+     * @return true if report {@code i}'s rows are not printed again after position {@code at},
+     *         neither as itself nor as a report cut from it, so they can be dropped
+     */
+    boolean doneAfter(int i, int at) {
+        return lastUse[i] <= at;
+    }
+
+    /**
+     * @return number of reports that need no query of their own
+     */
+    int derivedCount() {
+        return derived;
+    }
+
+    /**
+     * Cuts a top-N report from the full ranking it is a prefix of. When {@code r}'s filter
+     * compares a displayed column, only rows matching it are kept; rows of a ranking
+     * fetched with the same filter value all match. Values are compared through
+     * {@link NameIndex#fold}, ignoring case and accents like the server's collation
+     * (which the continent and region values of the catalog, all ASCII, never test).
+     *
+     * @param full Fetched full ranking
+     * @param r    Top-N report
+     * @return the first {@code r.limit()} matching rows of {@code full}, under {@code r}'s title
+     */
+    static ReportTable prefix(ReportTable full, Report r) {
+        List<String[]> rows = full.rows();
+        int col = r.template().filterColumn();
+        if (col >= 0) {
+            String value = NameIndex.fold(String.valueOf(r.params().get(0)));
+            rows = rows.stream()
+                    .filter(row -> value.equals(NameIndex.fold(row[col])))
+                    .limit(r.limit())
+                    .toList();
+        }
+        return new ReportTable(r.title(), full.headers(),
+                rows.subList(0, Math.min(r.limit(), rows.size())), full.rightAlign());
+    }
+
+    /**
+     * Finds a full ranking for a top-N report: same template and filter values, or
+     * the unfiltered template when the filter column is displayed. No limit either way.
+     */
+    private static int fullRankingFor(List<Report> reports, Report r) {
+        if (r.limit() == 0) {
+            return -1;
+        }
+        for (int j = 0; j < reports.size(); j++) {
+            Report full = reports.get(j);
+            if (full.limit() == 0 && full.template() == r.template() && full.params().equals(r.params())) {
+                return j;
+            }
+        }
+        ReportTemplate unfiltered = r.template().unfiltered();
+        if (unfiltered == null || r.template().filterColumn() < 0) {
+            return -1;
+        }
+        for (int j = 0; j < reports.size(); j++) {
+            Report full = reports.get(j);
+            if (full.limit() == 0 && full.template() == unfiltered) {
+                return j;
+            }
+        }
+        return -1;
+    }
+}
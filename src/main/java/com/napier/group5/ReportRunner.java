@@ -0,0 +1,507 @@
+package com.napier.group5;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a list of {@link Report}s and prints them in report-number order.
+ *
+ * Strategies available:
+ *  - sequential: one connection, one report after another (the original behaviour)
+ *  - stream:     like sequential, but rows are printed as they arrive (constant memory)
+ *  - parallel:   reports fetched at the same time over pooled connections
+ *  - batch:      every report sent in one multi-statement request (one round trip)
+ *  - snapshot:   three bulk reads into a {@link WorldSnapshot}, reports computed in Java
+ *  - groups:     top N of every continent, region, country and district, one window
+ *                query per template (prints those tables instead of the suite)
+ *  - incremental: like sequential, but reports whose tables have not changed since
+ *                the last run are replayed from a {@link ReportStore}
+ *
+ * In every case printing happens on the calling thread, in list order, so the
+ * output looks exactly the same whichever strategy is used.
+ */
+final class ReportRunner {
+
+    /**
+     * Logger for runner diagnostics.
+     */
+    private static final Logger log = Logger.getLogger(ReportRunner.class.getName());
+
+    private ReportRunner() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Sequential execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Fetches and prints every report, one after another, on a single connection.
+     * Top-N reports whose full ranking is also in the list are cut from it
+     * instead of being queried (see {@link ReportPlan}), and reports the fetch policy
+     * streams are printed as their rows arrive.
+     *
+     * @param con     Open JDBC connection
+     * @param reports Reports to run, in print order
+     * @throws SQLException if any query fails
+     */
+    static void runSequential(Connection con, List<Report> reports) throws SQLException {
+        CityTotals totals = new CityTotals(reports);
+        ReportPlan plan = plan(reports);
+        ReportTable[] kept = new ReportTable[reports.size()];
+        String section = null;
+        for (int i = 0; i < reports.size(); i++) {
+            Report r = reports.get(i);
+            section = printSectionIfChanged(section, r);
+
+            int src = plan.sourceOf(i);
+            FetchMode streamed = src >= 0 ? null : streamMode(r, plan, i, totals);
+            if (src >= 0) {
+                // Fetch the full ranking now if it comes later in the list
+                if (kept[src] == null) {
+                    kept[src] = fetch(con, reports.get(src), totals);
+                }
+                App.printTable(ReportPlan.prefix(kept[src], r));
+                if (plan.doneAfter(src, i)) {
+                    kept[src] = null;
+                }
+            } else if (streamed != null) {
+                // Large result nothing else needs: printed as it is read, never held
+                App.streamQuery(con, r, streamed);
+            } else {
+                ReportTable t = kept[i] != null ? kept[i] : fetch(con, r, totals);
+                // Kept only while a report cut from it is still to come
+                kept[i] = plan.doneAfter(i, i) ? null : t;
+                App.printTable(t);
+            }
+        }
+    }
+
+    /**
+     * Runs every report one after another, printing rows while they are still being
+     * fetched (see {@link App#streamQuery}), so no report is ever held in memory.
+     *
+     * @param con     Open JDBC connection
+     * @param reports Reports to run, in print order
+     * @throws SQLException if any query fails
+     */
+    static void runStreaming(Connection con, List<Report> reports) throws SQLException {
+        CityTotals totals = new CityTotals(reports);
+        String section = null;
+        for (Report r : reports) {
+            section = printSectionIfChanged(section, r);
+            if (totals.covers(r)) {
+                // A handful of rows at most: nothing to gain from streaming
+                App.printTable(fetch(con, r, totals));
+            } else {
+                App.streamQuery(con, r.title(), r.sql(), r.binds(), r.cols());
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Batch execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Sends every report as one multi-statement request (a single round trip) and
+     * prints each result set under its report's title as it is read back.
+     *
+     * The connection must have been opened with {@code allowMultiQueries=true}.
+     * Filter values are still bound as parameters; because the driver cannot
+     * server-prepare a multi-statement text, they are substituted client-side.
+     * The result cache is not consulted: the point is to fetch everything at once.
+     * Top-N reports cut from a full ranking (see {@link ReportPlan}) are left out of the request.
+     * When two or more population reports need the per-country city totals, the request
+     * starts by building them once in a temporary table that those reports join to
+     * (see {@link #batchSql}), so city is aggregated once rather than once per report.
+     *
+     * @param con     Open JDBC connection (allowMultiQueries enabled)
+     * @param reports Reports to run, in print order
+     * @throws SQLException if the request fails or returns fewer results than reports
+     */
+    static void runBatch(Connection con, List<Report> reports) throws SQLException {
+        if (reports.isEmpty()) {
+            return;
+        }
+        ReportPlan plan = plan(reports);
+        List<Integer> sent = new ArrayList<>();
+        List<Report> queries = new ArrayList<>();
+        List<Object> binds = new ArrayList<>();
+        for (int i = 0; i < reports.size(); i++) {
+            if (plan.sourceOf(i) < 0) {
+                sent.add(i);
+                queries.add(reports.get(i));
+                binds.addAll(reports.get(i).binds());
+            }
+        }
+
+        try (PreparedStatement ps = con.prepareStatement(batchSql(queries))) {
+            App.bind(ps, binds);
+            boolean isResultSet = skipUpdateCounts(ps, ps.execute());
+
+            // One result set per query, in the order the statements were sent.
+            // Each is read when its report (or one cut from it) is next to print.
+            ReportTable[] tables = new ReportTable[reports.size()];
+            int read = 0;
+            String section = null;
+            for (int i = 0; i < reports.size(); i++) {
+                Report r = reports.get(i);
+                int src = plan.sourceOf(i);
+                int need = src >= 0 ? src : i;
+                while (tables[need] == null) {
+                    Report q = reports.get(sent.get(read));
+                    if (!isResultSet) {
+                        throw new SQLException("Batch returned no result for report " + q.title());
+                    }
+                    try (ResultSet rs = ps.getResultSet()) {
+                        tables[sent.get(read)] = App.readTable(rs, q.title(), q.sql(), q.cols());
+                    }
+                    read++;
+                    isResultSet = skipUpdateCounts(ps, ps.getMoreResults());
+                }
+                section = printSectionIfChanged(section, r);
+                App.printTable(src >= 0 ? ReportPlan.prefix(tables[src], r) : tables[i]);
+                // Drop each table once nothing later is cut from it
+                if (src >= 0 && plan.doneAfter(src, i)) {
+                    tables[src] = null;
+                }
+                if (plan.doneAfter(i, i)) {
+                    tables[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Name of the temporary table holding the per-country city totals in a batch.
+     */
+    static final String BATCH_CITY_TOTALS = "report_city_totals";
+
+    /**
+     * Joins the reports' SQL into one multi-statement text, one statement per report.
+     * If {@link CityTotals} would share the city totals between these reports, they are
+     * first stored in a temporary table (dropped again at the end) and the covered
+     * reports read it; those statements return no result set.
+     *
+     * @param reports Reports, in execution order
+     * @return SQL statements separated by semicolons
+     */
+    static String batchSql(List<Report> reports) {
+        CityTotals totals = new CityTotals(reports);
+        boolean shared = reports.stream().anyMatch(totals::covers);
+        StringBuilder sql = new StringBuilder();
+        if (shared) {
+            sql.append("DROP TEMPORARY TABLE IF EXISTS ").append(BATCH_CITY_TOTALS).append(";\n")
+                    .append("CREATE TEMPORARY TABLE ").append(BATCH_CITY_TOTALS).append(" (PRIMARY KEY (CountryCode))\n")
+                    .append("SELECT CountryCode, SUM(Population) AS City_Pop FROM city GROUP BY CountryCode;\n");
+        }
+        for (Report r : reports) {
+            String text = totals.covers(r) ? r.template().sqlWithCityTotals(BATCH_CITY_TOTALS) : r.sql();
+            sql.append(text.strip()).append(";\n");
+        }
+        if (shared) {
+            sql.append("DROP TEMPORARY TABLE ").append(BATCH_CITY_TOTALS).append(";\n");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Moves past update counts (the temporary table statements) to the next result set.
+     *
+     * @return true if positioned on a result set, false if no results are left
+     */
+    private static boolean skipUpdateCounts(Statement st, boolean isResultSet) throws SQLException {
+        while (!isResultSet && st.getUpdateCount() != -1) {
+            isResultSet = st.getMoreResults();
+        }
+        return isResultSet;
+    }
+
+    // -------------------------------------------------------------------------
+    // Parallel execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Fetches the reports concurrently on {@code threads} workers and prints them in
+     * list order. Each worker borrows a connection from the pool for one report and
+     * gives it back, so at most {@code threads} queries are in flight at any time
+     * (fewer if the pool is smaller).
+     *
+     * A report is printed as soon as it and every report before it have been fetched,
+     * so the first tables appear while later ones are still running. Reports the fetch
+     * policy streams are instead run on the calling thread when their turn comes and
+     * printed as their rows arrive, so they are never held in memory.
+     *
+     * @param pool    Connection pool to borrow from
+     * @param reports Reports to run, in print order
+     * @param threads Number of worker threads (at least 1)
+     * @throws Exception if a connection cannot be obtained or any query fails
+     */
+    static void runParallel(ConnectionPool pool, List<Report> reports, int threads) throws Exception {
+        int size = Math.max(1, Math.min(threads, reports.size()));
+        ExecutorService workers = Executors.newFixedThreadPool(size);
+
+        try {
+            // Submit every report; each task borrows a connection for the duration of its query
+            // Top-N reports cut from a full ranking get no task of their own
+            CityTotals totals = new CityTotals(reports);
+            ReportPlan plan = plan(reports);
+            // Reports printed row by row are run on this thread when their turn comes
+            FetchMode[] streamed = new FetchMode[reports.size()];
+            List<Future<ReportTable>> pending = new ArrayList<>(reports.size());
+            for (int i = 0; i < reports.size(); i++) {
+                Report r = reports.get(i);
+                streamed[i] = plan.sourceOf(i) >= 0 ? null : streamMode(r, plan, i, totals);
+                pending.add(plan.sourceOf(i) >= 0 || streamed[i] != null ? null : workers.submit(() -> {
+                    try (Connection con = App.acquire(pool, r.title())) {
+                        return fetch(con, r, totals);
+                    }
+                }));
+            }
+
+            // Print in report order, waiting only for the next report in line
+            String section = null;
+            for (int i = 0; i < reports.size(); i++) {
+                Report r = reports.get(i);
+                section = printSectionIfChanged(section, r);
+                int src = plan.sourceOf(i);
+                if (streamed[i] != null) {
+                    try (Connection con = App.acquire(pool, r.title())) {
+                        App.streamQuery(con, r, streamed[i]);
+                    }
+                } else {
+                    App.printTable(src >= 0 ? ReportPlan.prefix(await(pending.get(src)), r) : await(pending.get(i)));
+                }
+                // Let go of each fetched table once nothing later is cut from it
+                if (src >= 0 && plan.doneAfter(src, i)) {
+                    pending.set(src, null);
+                }
+                if (plan.doneAfter(i, i)) {
+                    pending.set(i, null);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // In-memory execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Loads the world tables once and answers every report from memory.
+     * The connection is only used for the three bulk reads.
+     *
+     * @param con     Open JDBC connection
+     * @param reports Reports to run, in print order
+     * @return the loaded snapshot, so callers can reuse it for further runs
+     * @throws SQLException if loading the tables fails
+     */
+    static WorldSnapshot runSnapshot(Connection con, List<Report> reports) throws SQLException {
+        WorldSnapshot world = WorldSnapshot.load(con);
+        if (log.isLoggable(Level.INFO)) {
+            log.info(() -> String.format(" Snapshot loaded: %d countries, %d cities, %d languages",
+                    world.countryCount(), world.cityCount(), world.languageCount()));
+        }
+        runSnapshot(world, reports);
+        return world;
+    }
+
+    /**
+     * Prints every report from an already loaded snapshot; no database access at all.
+     *
+     * @param world   Loaded snapshot
+     * @param reports Reports to run, in print order
+     */
+    static void runSnapshot(WorldSnapshot world, List<Report> reports) {
+        String section = null;
+        for (Report r : reports) {
+            section = printSectionIfChanged(section, r);
+            App.printTable(world.compute(r));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Incremental execution
+    // -------------------------------------------------------------------------
+
+    /**
+     * Prints every report, running only those whose input tables changed since they
+     * were last stored (see {@link ReportStore}); the rest are replayed from disk.
+     *
+     * @param con     Open JDBC connection
+     * @param reports Reports to run, in print order
+     * @param store   Stored reports from earlier runs
+     * @throws SQLException if probing the tables or any query fails
+     */
+    static void runIncremental(Connection con, List<Report> reports, ReportStore store) throws SQLException {
+        store.probe(con, reports);
+        CityTotals totals = new CityTotals(reports);
+        int replayed = 0;
+        String section = null;
+        for (Report r : reports) {
+            section = printSectionIfChanged(section, r);
+            ReportTable t = store.replay(r);
+            if (t != null) {
+                replayed++;
+            } else {
+                t = fetch(con, r, totals);
+                store.save(r, t);
+            }
+            App.printTable(t);
+        }
+        if (log.isLoggable(Level.INFO)) {
+            int n = replayed;
+            log.info(() -> String.format(" Incremental: %d of %d reports replayed, %d run",
+                    n, reports.size(), reports.size() - n));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Top N per group
+    // -------------------------------------------------------------------------
+
+    /**
+     * Prints the top {@code n} rows of every group for each template, one query per
+     * template (see {@link TopPerGroup}), under a section per template.
+     *
+     * @param con       Open JDBC connection
+     * @param templates Templates filtered on a group
+     * @param n         Rows per group
+     * @throws SQLException if any query fails
+     */
+    static void runTopPerGroup(Connection con, List<ReportTemplate> templates, int n) throws SQLException {
+        for (ReportTemplate t : templates) {
+            List<ReportTable> groups = TopPerGroup.fetch(con, t, n);
+            App.printSection("Top " + n + " per group: " + t.label());
+            for (ReportTable g : groups) {
+                App.printTable(g);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Shared city totals
+    // -------------------------------------------------------------------------
+
+    /**
+     * Per-run holder for the per-country city population totals.
+     *
+     * Six population reports join country to the same derived table
+     * ({@code SUM(Population) FROM city GROUP BY CountryCode}), so each would scan
+     * city again. When a run contains two or more of them, the totals are read once
+     * (see {@link WorldSnapshot#loadCountryTotals}) and those reports are computed
+     * from it in memory. A run with only one of them keeps the plain query. Batch
+     * mode keeps the totals on the server instead, in a temporary table.
+     */
+    static final class CityTotals {
+
+        private final boolean shared;
+        private WorldSnapshot totals;
+
+        CityTotals(List<Report> reports) {
+            this.shared = reports.stream().filter(r -> r.template().usesCityTotals()).count() > 1;
+        }
+
+        /**
+         * @return true if {@code r} is answered from the shared totals
+         */
+        boolean covers(Report r) {
+            return shared && r.template().usesCityTotals();
+        }
+
+        /**
+         * Computes a covered report, loading the totals on first use.
+         */
+        synchronized ReportTable compute(Connection con, Report r) throws SQLException {
+            if (totals == null) {
+                totals = WorldSnapshot.loadCountryTotals(con);
+            }
+            return totals.compute(r);
+        }
+    }
+
+    /**
+     * Fetches one report: from the shared city totals if they cover it, otherwise
+     * with its own query. Both paths go through the result cache when one is set.
+     */
+    private static ReportTable fetch(Connection con, Report r, CityTotals totals) throws SQLException {
+        if (!totals.covers(r)) {
+            return App.fetchTable(con, r);
+        }
+        ResultCache cache = App.resultCache;
+        if (cache != null) {
+            return cache.get(ResultCache.key(r.sql(), r.binds(), r.cols()), r.title(), () -> totals.compute(con, r));
+        }
+        return totals.compute(con, r);
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Mode to print report {@code i} row by row with, or null if it is read into a table.
+     * Only reports the fetch policy streams or reads through a cursor qualify, and only
+     * when no other report is cut from them, they are not answered from the city totals
+     * and no result cache wants the whole table.
+     */
+    private static FetchMode streamMode(Report r, ReportPlan plan, int i, CityTotals totals) {
+        if (plan.isShared(i) || totals.covers(r) || App.resultCache != null) {
+            return null;
+        }
+        FetchMode mode = App.fetchPolicy.choose(r);
+        return mode == FetchMode.BUFFERED ? null : mode;
+    }
+
+    /**
+     * Plans a run and logs how many queries it saves.
+     */
+    private static ReportPlan plan(List<Report> reports) {
+        ReportPlan plan = new ReportPlan(reports);
+        if (log.isLoggable(Level.FINE)) {
+            log.fine(() -> String.format("Plan: %d of %d reports cut from a full ranking",
+                    plan.derivedCount(), reports.size()));
+        }
+        return plan;
+    }
+
+    /**
+     * Prints the section banner when a report starts a new section.
+     *
+     * @return the section of {@code r}, to pass in on the next call
+     */
+    private static String printSectionIfChanged(String current, Report r) {
+        if (!r.section().equals(current)) {
+            App.printSection(r.section());
+        }
+        return r.section();
+    }
+
+    /**
+     * Waits for a fetched report and unwraps the original failure, so callers see
+     * the same SQLException they would in sequential mode.
+     */
+    private static ReportTable await(Future<ReportTable> f) throws Exception {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
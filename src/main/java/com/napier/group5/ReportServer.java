@@ -0,0 +1,383 @@
+package com.napier.group5;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-running HTTP front end for the reports (REPORT_MODE=serve), built on the JDK's
+ * {@code com.sun.net.httpserver}.
+ *
+ * Endpoints (GET only):
+ *  - {@code /health}                       "ok"
+ *  - {@code /metrics}                      phase timings as JSON (see {@link Metrics})
+ *  - {@code /reports}                      the report catalog as JSON
+ *  - {@code /reports/{number}}             one catalog report
+ *  - {@code /templates/{template}?p=..&limit=N}
+ *                                          an ad-hoc report, one {@code p} per filter value
+ *
+ * Reports are rendered as the usual bordered table, or as JSON with {@code format=json}.
+ * Ranked reports without a limit also take {@code page_size} and {@code token}
+ * (see {@link ReportPager}); the next page's token is returned in the
+ * {@code X-Next-Page} header and the JSON {@code next} field.
+ *
+ * Every request borrows a warm connection from the pool, so server-side prepared
+ * statements (and the result cache, when enabled) are reused across requests.
+ * Handlers run on virtual threads when the JVM has them (Java 21+); otherwise on
+ * a cached pool of ordinary threads. Either way the connection pool bounds how
+ * many queries run at once.
+ */
+final class ReportServer implements AutoCloseable {
+
+    /**
+     * Logger for server diagnostics.
+     */
+    private static final Logger log = Logger.getLogger(ReportServer.class.getName());
+
+    /**
+     * Thrown by handlers for a 4xx response.
+     */
+    static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final List<Report> reports;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+
+    /**
+     * Binds the server; call {@link #start()} to accept requests.
+     *
+     * @param pool    Connections for the report queries
+     * @param reports Catalog served under {@code /reports}
+     * @param address Address to listen on (port 0 picks a free port)
+     * @throws IOException if the address cannot be bound
+     */
+    ReportServer(ConnectionPool pool, List<Report> reports, InetSocketAddress address) throws IOException {
+        this.pool = pool;
+        this.reports = reports;
+        this.server = HttpServer.create(address, 0);
+        this.handlers = handlerExecutor();
+        server.setExecutor(handlers);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts accepting requests in the background.
+     */
+    void start() {
+        server.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to a second for running ones to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        handlers.shutdown();
+    }
+
+    /**
+     * Runs the server until the JVM is asked to shut down (Ctrl+C, SIGTERM).
+     *
+     * @param pool    Connections for the report queries
+     * @param reports Report catalog
+     * @param port    Port to listen on
+     * @throws IOException          if the port cannot be bound
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    static void serve(ConnectionPool pool, List<Report> reports, int port) throws IOException, InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        try (ReportServer server = new ReportServer(pool, reports, new InetSocketAddress(port))) {
+            Thread hook = new Thread(stopped::countDown, "report-server-shutdown");
+            Runtime.getRuntime().addShutdownHook(hook);
+            server.start();
+            if (log.isLoggable(Level.INFO)) {
+                log.info(() -> "Serving reports on port " + server.port());
+            }
+            stopped.await();
+        }
+    }
+
+    /**
+     * One new virtual thread per request where available, otherwise a cached thread pool.
+     * Looked up reflectively so the code still compiles and runs on Java 17.
+     */
+    static ExecutorService handlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "report-server-handler");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Request handling
+    // -------------------------------------------------------------------------
+
+    private void handle(HttpExchange ex) throws IOException {
+        long start = System.nanoTime();
+        int status;
+        try {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                throw new HttpError(405, "Only GET is supported");
+            }
+            status = route(ex);
+        } catch (HttpError e) {
+            status = send(ex, e.status, "text/plain", e.getMessage() + "\n", null);
+        } catch (SQLException e) {
+            if (log.isLoggable(Level.WARNING)) {
+                log.warning(() -> "Query failed for " + ex.getRequestURI() + ": " + e.getMessage());
+            }
+            status = send(ex, 500, "text/plain", "Query failed: " + e.getMessage() + "\n", null);
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Request failed: " + ex.getRequestURI(), e);
+            status = send(ex, 500, "text/plain", "Internal error\n", null);
+        } finally {
+            ex.close();
+        }
+        if (log.isLoggable(Level.FINE)) {
+            int s = status;
+            log.fine(() -> String.format("%s %d %.1f ms", ex.getRequestURI(), s, (System.nanoTime() - start) / 1e6));
+        }
+    }
+
+    private int route(HttpExchange ex) throws IOException, SQLException {
+        String path = ex.getRequestURI().getPath();
+        Map<String, List<String>> query = query(ex.getRequestURI().getRawQuery());
+        String[] parts = path.split("/");
+
+        if (path.equals("/health")) {
+            return send(ex, 200, "text/plain", "ok\n", null);
+        }
+        if (path.equals("/metrics")) {
+            Metrics m = App.metrics;
+            if (m == null) {
+                throw new HttpError(404, "Metrics are off (REPORT_METRICS=1 turns them on)");
+            }
+            return send(ex, 200, "application/json", m.toJson(), null);
+        }
+        if (path.equals("/reports") || path.equals("/reports/")) {
+            return send(ex, 200, "application/json", catalogJson(), null);
+        }
+        if (parts.length == 3 && parts[1].equals("reports")) {
+            int number;
+            try {
+                number = Integer.parseInt(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "Not a report number: " + parts[2]);
+            }
+            Report r = reports.stream().filter(x -> x.number() == number).findFirst()
+                    .orElseThrow(() -> new HttpError(404, "No report " + number));
+            return respond(ex, r, query);
+        }
+        if (parts.length == 3 && parts[1].equals("templates")) {
+            ReportTemplate t;
+            try {
+                t = ReportTemplate.valueOf(parts[2].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(404, "No template " + parts[2]);
+            }
+            List<String> values = query.getOrDefault("p", List.of());
+            int limit = intParam(query, "limit", 0);
+            try {
+                return respond(ex, ReportCatalog.adHoc(t, limit, values.toArray()), query);
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, e.getMessage());
+            }
+        }
+        throw new HttpError(404, "Not found: " + path);
+    }
+
+    /**
+     * Runs a report (or one page of it) and sends it as a table or JSON.
+     */
+    private int respond(HttpExchange ex, Report r, Map<String, List<String>> query)
+            throws IOException, SQLException {
+        int pageSize = intParam(query, "page_size", 0);
+        ReportTable table;
+        String next = null;
+        try (Connection con = App.acquire(pool, r.title())) {
+            if (pageSize > 0) {
+                List<String> token = query.getOrDefault("token", List.of());
+                try {
+                    ReportPager.Page page = ReportPager.fetch(con, r, pageSize, token.isEmpty() ? null : token.get(0));
+                    table = page.table();
+                    next = page.next();
+                } catch (IllegalArgumentException e) {
+                    throw new HttpError(400, e.getMessage());
+                }
+            } else {
+                table = App.fetchTable(con, r);
+            }
+        }
+
+        boolean json = "json".equals(query.getOrDefault("format", List.of("text")).get(0));
+        return json
+               ? send(ex, 200, "application/json", tableJson(table, next), next)
+               : send(ex, 200, "text/plain", render(table), next);
+    }
+
+    private static int send(HttpExchange ex, int status, String type, String body, String next) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        if (next != null) {
+            ex.getResponseHeaders().set("X-Next-Page", next);
+        }
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+        return status;
+    }
+
+    // -------------------------------------------------------------------------
+    // Rendering
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return the table exactly as the batch job prints it
+     */
+    static String render(ReportTable table) {
+        StringWriter text = new StringWriter();
+        App.printTable(new ReportSink.WriterSink(text, true), table.title(), table.headers(), table.rows(),
+                table.rightAlign());
+        return text.toString();
+    }
+
+    /**
+     * JSON form of a table: numeric columns as numbers, NULL (empty) cells as null.
+     */
+    static String tableJson(ReportTable table, String next) {
+        StringBuilder out = new StringBuilder(64 + table.rows().size() * 48);
+        out.append("{\"title\":").append(quote(table.title())).append(",\"columns\":[");
+        for (int c = 0; c < table.headers().length; c++) {
+            out.append(c > 0 ? "," : "").append(quote(table.headers()[c]));
+        }
+        out.append("],\"rows\":[");
+        for (int r = 0; r < table.rows().size(); r++) {
+            String[] row = table.rows().get(r);
+            out.append(r > 0 ? ",[" : "[");
+            for (int c = 0; c < row.length; c++) {
+                if (c > 0) {
+                    out.append(',');
+                }
+                if (row[c] == null || row[c].isEmpty()) {
+                    out.append("null");
+                } else {
+                    out.append(table.rightAlign()[c] ? row[c] : quote(row[c]));
+                }
+            }
+            out.append(']');
+        }
+        out.append("],\"next\":").append(next == null ? "null" : quote(next)).append("}\n");
+        return out.toString();
+    }
+
+    private String catalogJson() {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < reports.size(); i++) {
+            Report r = reports.get(i);
+            out.append(i > 0 ? ",\n" : "\n")
+                    .append("{\"number\":").append(r.number())
+                    .append(",\"section\":").append(quote(r.section()))
+                    .append(",\"title\":").append(quote(r.title()))
+                    .append(",\"template\":").append(quote(r.template().name().toLowerCase(Locale.ROOT)))
+                    .append('}');
+        }
+        return out.append("\n]\n").toString();
+    }
+
+    static String quote(String s) {
+        StringBuilder q = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"' -> q.append("\\\"");
+                case '\\' -> q.append("\\\\");
+                case '\n' -> q.append("\\n");
+                case '\r' -> q.append("\\r");
+                case '\t' -> q.append("\\t");
+                default -> {
+                    if (ch < 0x20) {
+                        q.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        q.append(ch);
+                    }
+                }
+            }
+        }
+        return q.append('"').toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // Query string
+    // -------------------------------------------------------------------------
+
+    /**
+     * Parses a raw query string; repeated names keep every value in order.
+     */
+    static Map<String, List<String>> query(String raw) {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, List<String>> query, String name, int def) {
+        List<String> v = query.get(name);
+        if (v == null || v.get(0).isBlank()) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(v.get(0).strip());
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Not a number: " + name + "=" + v.get(0));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.napier.group5;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Where rendered report tables go.
+ *
+ * Tables are written line by line into a large buffer and flushed once per table,
+ * instead of one java.util.logging record (with its lock and String.format) per line.
+ * Logging is left for diagnostics only.
+ *
+ * Implementations:
+ *  - {@link #stdout(int)}: buffered UTF-8 writer on the process's standard output (default)
+ *  - {@link #file(Path, int)}: buffered UTF-8 writer on a file
+ *  - {@link #logger(Logger)}: one INFO record per line, the way reports used to be printed
+ *
+ * A sink is used from one thread at a time (reports are always printed on the calling thread).
+ */
+interface ReportSink extends AutoCloseable {
+
+    /**
+     * Default buffer size for the writer-backed sinks.
+     */
+    int DEFAULT_BUFFER = 1 << 16;
+
+    /**
+     * Writes one line of output (a line separator is added).
+     *
+     * @param line Text of the line
+     * @throws UncheckedIOException if the underlying output fails
+     */
+    void line(String line);
+
+    /**
+     * Pushes buffered output to its destination. Called after every table.
+     *
+     * @throws UncheckedIOException if the underlying output fails
+     */
+    void flush();
+
+    /**
+     * Flushes, and releases the destination if the sink owns it.
+     */
+    @Override
+    void close();
+
+    // -------------------------------------------------------------------------
+    // Factories
+    // -------------------------------------------------------------------------
+
+    /**
+     * Chooses a sink from a REPORT_OUTPUT style setting.
+     *
+     * @param spec       "-" (or blank) for standard output, "log" for the logger, otherwise a file path
+     * @param bufferSize Buffer size in chars for the writer-backed sinks
+     * @param log        Logger used when spec is "log"
+     * @return the sink
+     * @throws IOException if the file cannot be opened
+     */
+    static ReportSink open(String spec, int bufferSize, Logger log) throws IOException {
+        if (spec == null || spec.isBlank() || "-".equals(spec)) {
+            return stdout(bufferSize);
+        }
+        if ("log".equalsIgnoreCase(spec)) {
+            return logger(log);
+        }
+        return file(Path.of(spec), bufferSize);
+    }
+
+    /**
+     * @param bufferSize Buffer size in chars
+     * @return a sink writing to standard output (not closed by {@link #close()})
+     */
+    static ReportSink stdout(int bufferSize) {
+        // FileDescriptor.out bypasses System.out's own line-by-line flushing
+        Writer w = new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8);
+        return new WriterSink(new BufferedWriter(w, bufferSize), false);
+    }
+
+    /**
+     * @param path       File to create or overwrite
+     * @param bufferSize Buffer size in chars
+     * @return a sink writing to the file (closed by {@link #close()})
+     * @throws IOException if the file cannot be opened
+     */
+    static ReportSink file(Path path, int bufferSize) throws IOException {
+        Writer w = new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8);
+        return new WriterSink(new BufferedWriter(w, bufferSize), true);
+    }
+
+    /**
+     * @param log Logger to write to
+     * @return a sink logging each line as an INFO record
+     */
+    static ReportSink logger(Logger log) {
+        return new ReportSink() {
+            @Override
+            public void line(String line) {
+                if (log.isLoggable(Level.INFO)) {
+                    log.info(line);
+                }
+            }
+
+            @Override
+            public void flush() {
+                // Handlers flush on their own
+            }
+
+            @Override
+            public void close() {
+                // The logger is not owned by the sink
+            }
+        };
+    }
+
+    /**
+     * Sink over a buffered writer.
+     */
+    final class WriterSink implements ReportSink {
+        private final Writer out;
+        private final boolean owned;
+
+        WriterSink(Writer out, boolean owned) {
+            this.out = out;
+            this.owned = owned;
+        }
+
+        @Override
+        public void line(String line) {
+            try {
+                out.write(line);
+                out.write(System.lineSeparator());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (owned) {
+                    out.close();
+                } else {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.napier.group5;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Report output kept on disk between runs, for incremental refresh (REPORT_MODE=incremental).
+ *
+ * Every report depends on the tables its SQL reads ({@link #inputs(Report)}: report 32
+ * on country and countrylanguage, the country reports on country alone). Each stored
+ * report is saved with the {@link TableProbe} fingerprints its inputs had when it was
+ * computed. On the next run the fingerprints are taken once for all tables and a
+ * report is replayed from disk if its inputs are unchanged; otherwise it is run again
+ * and stored over the old copy.
+ *
+ * One text file per report, named after a hash of its query, bind values and
+ * columns, so changing a report's SQL simply misses the old file. Files are written
+ * to a temporary name and moved into place, so an interrupted run never leaves a
+ * half-written report behind.
+ */
+final class ReportStore {
+
+    private static final String SUFFIX = ".report";
+
+    private final Path dir;
+    private final TableProbe.Method probe;
+
+    // Fingerprints taken at the start of the current run
+    private Map<String, String> current = Map.of();
+
+    /**
+     * @param dir   State directory (created when needed)
+     * @param probe How table fingerprints are taken
+     */
+    ReportStore(Path dir, TableProbe.Method probe) {
+        this.dir = dir;
+        this.probe = probe;
+    }
+
+    /**
+     * The tables a report reads, i.e. those whose changes make it stale.
+     *
+     * @param r Report
+     * @return table names in lower case
+     */
+    static Set<String> inputs(Report r) {
+        return TableProbe.tablesIn(r.sql());
+    }
+
+    /**
+     * Fingerprints every table the reports read. Must be called before the reports are
+     * fetched, so a change made during the run is seen by the next one.
+     *
+     * @param con     Open JDBC connection
+     * @param reports Reports about to run
+     * @return table name -> fingerprint
+     * @throws SQLException if a probe fails
+     */
+    Map<String, String> probe(Connection con, List<Report> reports) throws SQLException {
+        Set<String> tables = new TreeSet<>();
+        for (Report r : reports) {
+            tables.addAll(inputs(r));
+        }
+        Map<String, String> now = TableProbe.fingerprints(con, probe, tables);
+        use(now);
+        return now;
+    }
+
+    /**
+     * Sets the fingerprints that {@link #replay} compares against and {@link #save} stores.
+     *
+     * @param fingerprints Table name (lower case) -> fingerprint
+     */
+    void use(Map<String, String> fingerprints) {
+        current = Map.copyOf(fingerprints);
+    }
+
+    /**
+     * @return the stored output of {@code r}, retitled, if its inputs have not changed
+     *         since it was stored; null if it has to be run again
+     */
+    ReportTable replay(Report r) {
+        Stored s = read(file(r));
+        if (s == null || !s.fingerprints().equals(fingerprintsOf(r))) {
+            return null;
+        }
+        ReportTable t = s.table();
+        return new ReportTable(r.title(), t.headers(), t.rows(), t.rightAlign());
+    }
+
+    /**
+     * Stores a freshly computed report with the fingerprints taken by {@link #probe}.
+     *
+     * @param r     Report
+     * @param table Its output
+     */
+    void save(Report r, ReportTable table) {
+        try {
+            Files.createDirectories(dir);
+            Path target = file(r);
+            Path tmp = Files.createTempFile(dir, "tmp", SUFFIX);
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                write(w, new Stored(fingerprintsOf(r), table));
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store report " + r.title(), e);
+        }
+    }
+
+    private Map<String, String> fingerprintsOf(Report r) {
+        Map<String, String> out = new TreeMap<>();
+        for (String t : inputs(r)) {
+            out.put(t, current.getOrDefault(t, "unknown"));
+        }
+        return out;
+    }
+
+    // -------------------------------------------------------------------------
+    // File format
+    // -------------------------------------------------------------------------
+
+    /**
+     * A report as kept on disk.
+     *
+     * @param fingerprints Input table fingerprints at the time it was computed
+     * @param table        The report
+     */
+    record Stored(Map<String, String> fingerprints, ReportTable table) {
+    }
+
+    /**
+     * @return the file holding {@code r}, named after its query, binds and columns
+     */
+    Path file(Report r) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(
+                    ResultCache.key(r.sql(), r.binds(), r.cols()).toString().getBytes(StandardCharsets.UTF_8));
+            return dir.resolve(HexFormat.of().formatHex(hash, 0, 16) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+
+    /**
+     * Writes one tab-separated line per item, each starting with its kind:
+     * {@code table}, {@code title}, {@code headers}, {@code align} (L/R per column), {@code row}.
+     */
+    static void write(BufferedWriter w, Stored s) throws IOException {
+        for (Map.Entry<String, String> e : s.fingerprints().entrySet()) {
+            line(w, "table", e.getKey(), e.getValue());
+        }
+        ReportTable t = s.table();
+        line(w, "title", t.title());
+        line(w, "headers", t.headers());
+        StringBuilder align = new StringBuilder();
+        for (boolean right : t.rightAlign()) {
+            align.append(right ? 'R' : 'L');
+        }
+        line(w, "align", align.toString());
+        for (String[] row : t.rows()) {
+            line(w, "row", row);
+        }
+    }
+
+    /**
+     * Reads a report written by {@link #write}.
+     *
+     * @return the stored report, null if the file is missing or not in the expected format
+     */
+    static Stored read(Path file) {
+        Map<String, String> fingerprints = new TreeMap<>();
+        String title = null;
+        String[] headers = null;
+        boolean[] right = null;
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = split(line);
+                switch (f[0]) {
+                    case "table" -> fingerprints.put(f[1], f[2]);
+                    case "title" -> title = f[1];
+                    case "headers" -> headers = Arrays.copyOfRange(f, 1, f.length);
+                    case "align" -> {
+                        right = new boolean[f[1].length()];
+                        for (int c = 0; c < right.length; c++) {
+                            right[c] = f[1].charAt(c) == 'R';
+                        }
+                    }
+                    case "row" -> rows.add(Arrays.copyOfRange(f, 1, f.length));
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return null; // unreadable or damaged: treated as missing, the report is run again
+        }
+        if (title == null || headers == null || right == null || right.length != headers.length) {
+            return null;
+        }
+        return new Stored(fingerprints, new ReportTable(title, headers, rows, right));
+    }
+
+    private static void line(BufferedWriter w, String kind, String... fields) throws IOException {
+        w.write(kind);
+        for (String f : fields) {
+            w.write('\t');
+            w.write(escape(f == null ? "" : f));
+        }
+        w.newLine();
+    }
+
+    /**
+     * Escapes backslash, tab and line breaks so every field stays on its line.
+     */
+    static String escape(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Splits a line on tabs and undoes {@link #escape} in each field.
+     */
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder f = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(f.toString());
+                f.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char n = line.charAt(++i);
+                f.append(switch (n) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> n;
+                });
+            } else {
+                f.append(c);
+            }
+        }
+        fields.add(f.toString());
+        return fields.toArray(new String[0]);
+    }
+}
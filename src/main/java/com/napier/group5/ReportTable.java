@@ -0,0 +1,16 @@
+package com.napier.group5;
+
+import java.util.List;
+
+/**
+ * A fully fetched report, ready to be handed to {@link App#printTable}.
+ * Keeping the fetch and the print apart lets several reports be fetched
+ * at the same time and still be printed in report-number order.
+ *
+ * @param title      Title of the report
+ * @param headers    Column headers
+ * @param rows       Formatted cell values, one String[] per row
+ * @param rightAlign For each column, whether it is right-aligned (numbers)
+ */
+record ReportTable(String title, String[] headers, List<String[]> rows, boolean[] rightAlign) {
+}
@@ -0,0 +1,554 @@
+package com.napier.group5;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One SQL template per kind of report, with {@code ?} where the filter value goes.
+ *
+ * Because the SQL text of a template never changes, MySQL only has to parse and plan
+ * it once per connection: with {@code useServerPrepStmts=true&cachePrepStmts=true}
+ * on the JDBC URL, Connector/J keeps the server-side prepared statement open after
+ * {@code close()} and hands it back on the next {@code prepareStatement} with the
+ * same text. Ranked templates can also be limited to the top N rows (a
+ * {@code LIMIT ?} is appended, see {@link Report#sql()}).
+ *
+ * LANGUAGE_SPEAKERS takes any number of languages; its IN list gets one {@code ?} per value.
+ *
+ * Ranked templates can also be read a page at a time (see {@link #pageSql(boolean)}
+ * and {@link ReportPager}), and those filtered on one group can be ranked within
+ * every group at once (see {@link #topPerGroupSql()}).
+ */
+enum ReportTemplate {
+
+    // ---- Countries (ranked) ----
+
+    COUNTRIES_WORLD("Countries in the world", true,
+            """
+            SELECT Code, Name, Continent, Region, Population, Capital
+            FROM country
+            ORDER BY Population DESC
+            """,
+            "Code", "Name", "Continent", "Region", "Population", "Capital"),
+
+    COUNTRIES_BY_CONTINENT("Countries by continent", true,
+            """
+            SELECT Code, Name, Continent, Region, Population, Capital
+            FROM country
+            WHERE Continent = ?
+            ORDER BY Population DESC
+            """,
+            "Code", "Name", "Continent", "Region", "Population", "Capital"),
+
+    COUNTRIES_BY_REGION("Countries by region", true,
+            """
+            SELECT Code, Name, Continent, Region, Population, Capital
+            FROM country
+            WHERE Region = ?
+            ORDER BY Population DESC
+            """,
+            "Code", "Name", "Continent", "Region", "Population", "Capital"),
+
+    // ---- Cities (ranked) ----
+
+    CITIES_WORLD("Cities in the world", true,
+            """
+            SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
+            FROM city ci
+            LEFT JOIN country c ON ci.CountryCode = c.Code
+            ORDER BY Population DESC
+            """,
+            "Name", "Country", "District", "Population"),
+
+    CITIES_BY_CONTINENT("Cities by continent", true,
+            """
+            SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
+            FROM city ci
+            LEFT JOIN country c ON ci.CountryCode = c.Code
+            WHERE c.Continent = ?
+            ORDER BY Population DESC
+            """,
+            "Name", "Country", "District", "Population"),
+
+    CITIES_BY_REGION("Cities by region", true,
+            """
+            SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
+            FROM city ci
+            LEFT JOIN country c ON ci.CountryCode = c.Code
+            WHERE c.Region = ?
+            ORDER BY Population DESC
+            """,
+            "Name", "Country", "District", "Population"),
+
+    CITIES_BY_COUNTRY("Cities by country", true,
+            """
+            SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
+            FROM city ci
+            LEFT JOIN country c ON ci.CountryCode = c.Code
+            WHERE c.Name = ?
+            ORDER BY Population DESC
+            """,
+            "Name", "Country", "District", "Population"),
+
+    CITIES_BY_DISTRICT("Cities by district", true,
+            """
+            SELECT ci.Name AS Name, c.Name AS Country, ci.District AS District, ci.Population AS Population
+            FROM city ci
+            LEFT JOIN country c ON ci.CountryCode = c.Code
+            WHERE ci.District = ?
+            ORDER BY Population DESC
+            """,
+            "Name", "Country", "District", "Population"),
+
+    // ---- Capital cities (ranked) ----
+
+    CAPITALS_WORLD("Capital cities in the world", true,
+            """
+            SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
+            FROM city ci
+            INNER JOIN country co ON ci.ID = co.Capital
+            ORDER BY ci.Population DESC
+            """,
+            "Name", "Country", "Population"),
+
+    CAPITALS_BY_CONTINENT("Capital cities by continent", true,
+            """
+            SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
+            FROM city ci
+            INNER JOIN country co ON ci.ID = co.Capital
+            WHERE co.Continent = ?
+            ORDER BY ci.Population DESC
+            """,
+            "Name", "Country", "Population"),
+
+    CAPITALS_BY_REGION("Capital cities by region", true,
+            """
+            SELECT ci.Name AS Name, co.Name AS Country, ci.Population AS Population
+            FROM city ci
+            INNER JOIN country co ON ci.ID = co.Capital
+            WHERE co.Region = ?
+            ORDER BY ci.Population DESC
+            """,
+            "Name", "Country", "Population"),
+
+    // ---- Population distribution ----
+
+    POPULATION_BY_CONTINENT("Population by continent", false,
+            """
+            SELECT
+                co.Continent AS Name,
+                SUM(co.Population) AS `Total Population`,
+                ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            LEFT JOIN (
+                SELECT CountryCode, SUM(Population) AS City_Pop
+                FROM city
+                GROUP BY CountryCode
+            ) ci ON co.Code = ci.CountryCode
+            GROUP BY co.Continent
+            ORDER BY `Total Population` DESC
+            """,
+            "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    POPULATION_BY_REGION("Population by region", false,
+            """
+            SELECT
+                co.Region AS Name,
+                SUM(co.Population) AS `Total Population`,
+                ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            LEFT JOIN (
+                SELECT CountryCode, SUM(Population) AS City_Pop
+                FROM city
+                GROUP BY CountryCode
+            ) ci ON co.Code = ci.CountryCode
+            GROUP BY co.Region
+            ORDER BY `Total Population` DESC
+            """,
+            "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    POPULATION_BY_COUNTRY("Population by country", false,
+            """
+            SELECT
+                co.Name AS Country,
+                co.Population AS `Total Population`,
+                ROUND(SUM(ci.Population) / co.Population * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.Population) / co.Population) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            LEFT JOIN city ci ON co.Code = ci.CountryCode
+            GROUP BY co.Code, co.Name, co.Population
+            ORDER BY `Total Population` DESC
+            """,
+            "Country", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    WORLD_POPULATION("World population", false,
+            """
+            SELECT SUM(Population) AS total_world_population
+            FROM country
+            """,
+            "total_world_population"),
+
+    CONTINENT_POPULATION("Continent population", false,
+            """
+            SELECT
+                co.Continent AS Name,
+                SUM(co.Population) AS `Total Population`,
+                ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            LEFT JOIN (
+                SELECT CountryCode, SUM(Population) AS City_Pop
+                FROM city
+                GROUP BY CountryCode
+            ) ci ON co.Code = ci.CountryCode
+            WHERE co.Continent = ?
+            GROUP BY co.Continent
+            ORDER BY `Total Population` DESC
+            """,
+            "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    REGION_POPULATION("Region population", false,
+            """
+            SELECT
+                co.Region AS Name,
+                SUM(co.Population) AS `Total Population`,
+                ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            LEFT JOIN (
+                SELECT CountryCode, SUM(Population) AS City_Pop
+                FROM city
+                GROUP BY CountryCode
+            ) ci ON co.Code = ci.CountryCode
+            WHERE co.Region = ?
+            GROUP BY co.Region
+            ORDER BY `Total Population` DESC
+            """,
+            "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    COUNTRY_POPULATION("Country population", false,
+            """
+            SELECT
+                co.Name AS Name,
+                SUM(co.Population) AS `Total Population`,
+                ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            LEFT JOIN (
+                SELECT CountryCode, SUM(Population) AS City_Pop
+                FROM city
+                GROUP BY CountryCode
+            ) ci ON co.Code = ci.CountryCode
+            WHERE co.Name = ?
+            GROUP BY co.Name
+            ORDER BY `Total Population` DESC
+            """,
+            "Name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    DISTRICT_POPULATION("District population", false,
+            """
+            SELECT
+                ci.District AS District,
+                SUM(ci.City_Pop) AS `Total Population`,
+                ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            INNER JOIN (
+                SELECT CountryCode, District, SUM(Population) AS City_Pop
+                FROM city
+                WHERE District = ?
+                GROUP BY CountryCode, District
+            ) ci ON co.Code = ci.CountryCode
+            GROUP BY ci.District
+            ORDER BY `Total Population` DESC
+            """,
+            "District", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    CITY_POPULATION("City population", false,
+            """
+            SELECT
+                ci.Name AS city_name,
+                SUM(ci.City_Pop) AS `Total Population`,
+                ROUND(SUM(ci.City_Pop) / SUM(co.Population) * 100, 2) AS `Population in Cities (%)`,
+                ROUND((1 - SUM(ci.City_Pop) / SUM(co.Population)) * 100, 2) AS `Population not in Cities (%)`
+            FROM country co
+            INNER JOIN (
+                SELECT CountryCode, Name, SUM(Population) AS City_Pop
+                FROM city
+                WHERE Name = ?
+                GROUP BY CountryCode, Name
+            ) ci ON co.Code = ci.CountryCode
+            GROUP BY ci.Name
+            ORDER BY `Total Population` DESC
+            """,
+            "city_name", "Total Population", "Population in Cities (%)", "Population not in Cities (%)"),
+
+    // ---- Languages ----
+
+    LANGUAGE_SPEAKERS("Population by language", false,
+            """
+            SELECT
+                cl.Language AS Language,
+                ROUND(SUM(c.Population * cl.Percentage / 100)) AS Num_of_people,
+                ROUND(
+                    (SUM(c.Population * cl.Percentage / 100) /
+                     (SELECT SUM(Population) FROM country) * 100), 2
+                ) AS Percent_of_world
+            FROM countrylanguage cl
+            JOIN country c ON cl.CountryCode = c.Code
+            WHERE cl.Language IN (%s)
+            GROUP BY cl.Language
+            ORDER BY Num_of_people DESC
+            """,
+            "Language", "Num_of_people", "Percent_of_world");
+
+    /**
+     * Sort key of a ranked template and the unique column that breaks ties, as SQL
+     * expressions (WHERE cannot use the select aliases).
+     *
+     * @param population Population expression the report is ordered by
+     * @param key        Unique tie-breaker (primary key)
+     * @param numericKey true if the tie-breaker is an integer column
+     */
+    record Keyset(String population, String key, boolean numericKey) {
+    }
+
+    /**
+     * Label of the tie-breaker column added to the select list of {@link #pageSql(boolean)}.
+     */
+    static final String PAGE_KEY = "Page_Key";
+
+    /**
+     * Labels of the group and rank columns added by {@link #topPerGroupSql()}.
+     */
+    static final String GROUP_KEY = "Group_Key";
+    static final String GROUP_RANK = "Group_Rank";
+
+    /**
+     * The filter of a ranked template: {@code WHERE <column> = ?} on its own line.
+     */
+    private static final Pattern GROUP_FILTER = Pattern.compile("(?m)^WHERE (\\S+) = \\?$");
+
+    /**
+     * The derived table of per-country city totals that the population templates join to.
+     */
+    private static final String CITY_TOTALS_JOIN = """
+            LEFT JOIN (
+                SELECT CountryCode, SUM(Population) AS City_Pop
+                FROM city
+                GROUP BY CountryCode
+            ) ci ON co.Code = ci.CountryCode
+            """;
+
+    private final String label;
+    private final boolean ranked;
+    private final String sql;
+    private final String[] cols;
+
+    ReportTemplate(String label, boolean ranked, String sql, String... cols) {
+        this.label = label;
+        this.ranked = ranked;
+        this.sql = sql;
+        this.cols = cols;
+    }
+
+    /**
+     * @return short human-readable name, e.g. "Cities by continent"
+     */
+    String label() {
+        return label;
+    }
+
+    /**
+     * @return true if rows are ordered by population, so a top-N limit makes sense
+     */
+    boolean ranked() {
+        return ranked;
+    }
+
+    /**
+     * @return true if the report only needs each country's total city population
+     *         ({@code SUM(Population) FROM city GROUP BY CountryCode}), not individual cities
+     */
+    boolean usesCityTotals() {
+        return switch (this) {
+            case POPULATION_BY_CONTINENT, POPULATION_BY_REGION, POPULATION_BY_COUNTRY,
+                 CONTINENT_POPULATION, REGION_POPULATION, COUNTRY_POPULATION -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * SQL of a {@link #usesCityTotals()} template that joins a table already holding the
+     * per-country city totals ({@code CountryCode, City_Pop}) instead of aggregating city.
+     * The columns and their rounding are unchanged.
+     *
+     * @param table Name of the totals table (a plain identifier)
+     * @return SQL text
+     * @throws IllegalStateException if the template does not use the city totals
+     */
+    String sqlWithCityTotals(String table) {
+        String join = "LEFT JOIN " + table + " ci ON co.Code = ci.CountryCode\n";
+        if (this == POPULATION_BY_COUNTRY) {
+            // Joins city directly; with one totals row per country no grouping is left to do
+            return """
+                    SELECT
+                        co.Name AS Country,
+                        co.Population AS `Total Population`,
+                        ROUND(ci.City_Pop / co.Population * 100, 2) AS `Population in Cities (%)`,
+                        ROUND((1 - ci.City_Pop / co.Population) * 100, 2) AS `Population not in Cities (%)`
+                    FROM country co
+                    """ + join + """
+                    ORDER BY `Total Population` DESC
+                    """;
+        }
+        if (!usesCityTotals() || !sql.contains(CITY_TOTALS_JOIN)) {
+            throw new IllegalStateException(this + " does not use the city totals");
+        }
+        return sql.replace(CITY_TOTALS_JOIN, join);
+    }
+
+    /**
+     * @return the keyset a ranked template is paged by
+     * @throws IllegalStateException if the template is not ranked
+     */
+    Keyset keyset() {
+        return switch (this) {
+            case COUNTRIES_WORLD, COUNTRIES_BY_CONTINENT, COUNTRIES_BY_REGION ->
+                    new Keyset("Population", "Code", false);
+            case CITIES_WORLD, CITIES_BY_CONTINENT, CITIES_BY_REGION, CITIES_BY_COUNTRY, CITIES_BY_DISTRICT,
+                 CAPITALS_WORLD, CAPITALS_BY_CONTINENT, CAPITALS_BY_REGION ->
+                    new Keyset("ci.Population", "ci.ID", true);
+            default -> throw new IllegalStateException(this + " is not ranked, it cannot be paged");
+        };
+    }
+
+    /**
+     * @return column labels to display
+     */
+    String[] cols() {
+        return cols.clone();
+    }
+
+    /**
+     * @return number of filter values the template takes, or -1 for a list of one or
+     *         more (LANGUAGE_SPEAKERS)
+     */
+    int paramCount() {
+        return this == LANGUAGE_SPEAKERS ? -1 : (int) sql.chars().filter(ch -> ch == '?').count();
+    }
+
+    /**
+     * SQL text of the template for a given number of bind values.
+     *
+     * @param paramCount Number of filter values (only matters for LANGUAGE_SPEAKERS)
+     * @return SQL with one {@code ?} per value
+     */
+    String sql(int paramCount) {
+        if (this == LANGUAGE_SPEAKERS) {
+            return sql.formatted(String.join(", ", Collections.nCopies(Math.max(1, paramCount), "?")));
+        }
+        return sql;
+    }
+
+    /**
+     * SQL text for one page of a ranked template, using keyset pagination: instead of
+     * skipping rows with OFFSET, the page starts strictly after the last row of the
+     * previous one, so page k costs the same as page 1 (an index range read when
+     * the population column is indexed with the key).
+     *
+     * Rows are ordered by population, then by the tie-breaker, both descending, and
+     * the tie-breaker is selected as {@link #PAGE_KEY}. Placeholders, in order: the
+     * filter value (if any), then when {@code after} is set the cursor population
+     * (twice) and key, then the row limit.
+     *
+     * @param after true for every page but the first
+     * @return SQL with placeholders
+     * @throws IllegalStateException if the template is not ranked
+     */
+    String pageSql(boolean after) {
+        Keyset k = keyset();
+        String head = sql.substring(0, sql.lastIndexOf("ORDER BY"));
+        StringBuilder out = new StringBuilder(head.length() + 200)
+                .append("SELECT ").append(k.key()).append(" AS ").append(PAGE_KEY).append(", ")
+                .append(head.substring("SELECT ".length()));
+        if (after) {
+            // Ranked templates have no subqueries, so a WHERE here is the outer one
+            out.append(head.contains("WHERE ") ? "  AND " : "WHERE ")
+                    .append('(').append(k.population()).append(" < ? OR (")
+                    .append(k.population()).append(" = ? AND ").append(k.key()).append(" < ?))\n");
+        }
+        return out.append("ORDER BY ").append(k.population()).append(" DESC, ")
+                .append(k.key()).append(" DESC\n")
+                .append("LIMIT ?\n")
+                .toString();
+    }
+
+    /**
+     * @return index of the displayed column the template's {@code WHERE <column> = ?}
+     *         filter compares, or -1 if it has no such filter or does not display that column
+     */
+    int filterColumn() {
+        Matcher filter = GROUP_FILTER.matcher(sql);
+        return filter.find() ? Arrays.asList(cols).indexOf(filter.group(1)) : -1;
+    }
+
+    /**
+     * @return the template with the same query minus its {@code WHERE <column> = ?}
+     *         filter (e.g. COUNTRIES_WORLD for COUNTRIES_BY_CONTINENT), or null if none
+     */
+    ReportTemplate unfiltered() {
+        Matcher filter = GROUP_FILTER.matcher(sql);
+        if (!filter.find()) {
+            return null;
+        }
+        String without = sql.substring(0, filter.start()) + sql.substring(filter.end() + 1);
+        for (ReportTemplate t : values()) {
+            if (t.sql.equals(without)) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the template is ranked and filtered on one group (continent,
+     *         region, country or district), so {@link #topPerGroupSql()} applies
+     */
+    boolean groupable() {
+        return ranked && GROUP_FILTER.matcher(sql).find();
+    }
+
+    /**
+     * SQL that ranks the rows within every group the template can filter on, in one query:
+     * the filter column becomes the window partition, so one scan answers what would
+     * otherwise be one query per continent, region, country or district.
+     *
+     * Rows come back grouped ({@link #GROUP_KEY}, in the column's sort order) and by
+     * rank within the group ({@link #GROUP_RANK}, from 1). The only placeholder is the
+     * number of rows to keep per group.
+     *
+     * @return SQL with one {@code ?}
+     * @throws IllegalStateException if the template is not {@link #groupable()}
+     */
+    String topPerGroupSql() {
+        Matcher filter = GROUP_FILTER.matcher(sql);
+        if (!ranked || !filter.find()) {
+            throw new IllegalStateException(this + " is not filtered on a group");
+        }
+        Keyset k = keyset();
+        String group = filter.group(1);
+        String from = sql.substring(0, filter.start());
+        return "SELECT * FROM (\n"
+                + "SELECT " + group + " AS " + GROUP_KEY + ", " + from.substring("SELECT ".length())
+                .replaceFirst("\n(?=FROM )", ",\n       ROW_NUMBER() OVER (PARTITION BY " + group
+                        + " ORDER BY " + k.population() + " DESC, " + k.key() + " DESC) AS " + GROUP_RANK + "\n")
+                + ") ranked\n"
+                + "WHERE " + GROUP_RANK + " <= ?\n"
+                + "ORDER BY " + GROUP_KEY + ", " + GROUP_RANK + "\n";
+    }
+}
@@ -0,0 +1,249 @@
+package com.napier.group5;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An in-process cache of fetched reports, placed in front of the query runner.
+ *
+ * - Key: the SQL text with whitespace normalised, its bind parameters and the
+ *   displayed columns (so two text blocks that differ only in indentation share an entry).
+ * - Bounded: at most {@code maxEntries}, least recently used entries are evicted first.
+ * - TTL: entries older than {@code ttl} are treated as missing.
+ * - Invalidation: {@link #invalidate(String)} drops every entry that reads a table,
+ *   and {@link #revalidate(Connection)} does that automatically for each table whose
+ *   {@link TableProbe} fingerprint changed since the last check.
+ *
+ * Cached rows are shared between callers and must not be modified.
+ */
+final class ResultCache {
+
+    /**
+     * Logger for cache diagnostics (invalidations).
+     */
+    private static final Logger log = Logger.getLogger(ResultCache.class.getName());
+
+    /**
+     * Cache key: normalised SQL, bind parameters, displayed columns.
+     */
+    record Key(String sql, List<Object> params, List<String> cols) {
+    }
+
+    /**
+     * A cached report, the tables it reads and when it was stored.
+     */
+    private record Entry(ReportTable table, Set<String> tables, long storedAt) {
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final TableProbe.Method probe;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    // Last known fingerprint of every watched table (null until first probed)
+    private final Map<String, String> fingerprints = new LinkedHashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * @param maxEntries Maximum number of cached reports
+     * @param ttl        How long a cached report stays valid
+     * @param probe      How {@link #revalidate(Connection)} detects table changes
+     */
+    ResultCache(int maxEntries, Duration ttl, TableProbe.Method probe) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.probe = probe;
+        // accessOrder = true gives least-recently-used iteration order
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ResultCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Lookup
+    // -------------------------------------------------------------------------
+
+    /**
+     * Builds the cache key for a query.
+     *
+     * @param sql    SQL text
+     * @param params Bind parameters, in order
+     * @param cols   Displayed column labels
+     * @return key with the SQL whitespace collapsed
+     */
+    static Key key(String sql, List<Object> params, String... cols) {
+        return new Key(sql.strip().replaceAll("\\s+", " "), List.copyOf(params), List.of(cols));
+    }
+
+    /**
+     * Returns the cached report for {@code key}, or runs {@code loader} and caches its result.
+     * The returned table carries {@code title}, whatever title it was first cached under.
+     *
+     * @param key    Cache key (see {@link #key})
+     * @param title  Title for the returned report
+     * @param loader Runs the query on a miss
+     * @return the report
+     * @throws SQLException if the loader fails
+     */
+    ReportTable get(Key key, String title, Loader loader) throws SQLException {
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null && System.nanoTime() - e.storedAt() <= ttlNanos) {
+                hits++;
+                return retitle(e.table(), title);
+            }
+            if (e != null) {
+                entries.remove(key); // expired
+            }
+            misses++;
+        }
+
+        // Run the query outside the lock so other reports are not held up
+        ReportTable table = loader.load();
+        synchronized (this) {
+            entries.put(key, new Entry(table, TableProbe.tablesIn(key.sql()), System.nanoTime()));
+        }
+        return table;
+    }
+
+    /**
+     * Runs a query on a cache miss.
+     */
+    @FunctionalInterface
+    interface Loader {
+        ReportTable load() throws SQLException;
+    }
+
+    // -------------------------------------------------------------------------
+    // Invalidation
+    // -------------------------------------------------------------------------
+
+    /**
+     * Drops every cached report that reads {@code table}.
+     *
+     * @param table Table name (case-insensitive)
+     * @return number of entries dropped
+     */
+    synchronized int invalidate(String table) {
+        String t = table.toLowerCase(Locale.ROOT);
+        int dropped = 0;
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().tables().contains(t)) {
+                it.remove();
+                dropped++;
+            }
+        }
+        invalidations += dropped;
+        return dropped;
+    }
+
+    /**
+     * Drops every cached report.
+     */
+    synchronized void invalidateAll() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * Adds tables to probe in {@link #revalidate(Connection)} even before any cached
+     * report reads them, so the first revalidation records a baseline fingerprint.
+     *
+     * @param tables Table names
+     */
+    synchronized void watch(String... tables) {
+        for (String t : tables) {
+            fingerprints.putIfAbsent(t.toLowerCase(Locale.ROOT), null);
+        }
+    }
+
+    /**
+     * Probes every table that cached reports depend on and invalidates the reports
+     * whose tables changed since the previous call. Call this once per report run.
+     *
+     * @param con Open JDBC connection for the probe queries
+     * @throws SQLException if a probe fails
+     */
+    void revalidate(Connection con) throws SQLException {
+        Set<String> tables = new TreeSet<>();
+        synchronized (this) {
+            for (Entry e : entries.values()) {
+                tables.addAll(e.tables());
+            }
+            tables.addAll(fingerprints.keySet());
+        }
+        if (tables.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> now = TableProbe.fingerprints(con, probe, tables);
+        synchronized (this) {
+            for (Map.Entry<String, String> t : now.entrySet()) {
+                String before = fingerprints.put(t.getKey(), t.getValue());
+                if (before != null && !before.equals(t.getValue())) {
+                    int dropped = invalidate(t.getKey());
+                    if (log.isLoggable(Level.INFO)) {
+                        log.info(() -> String.format("Table %s changed, %d cached report(s) dropped",
+                                t.getKey(), dropped));
+                    }
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Counters
+    // -------------------------------------------------------------------------
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized long evictions() {
+        return evictions;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return one-line summary of the counters, for logging
+     */
+    synchronized String stats() {
+        return String.format("Cache: entries=%d hits=%d misses=%d evictions=%d invalidated=%d",
+                entries.size(), hits, misses, evictions, invalidations);
+    }
+
+    /**
+     * Same rows and columns, different title (titles are not part of the key).
+     */
+    private static ReportTable retitle(ReportTable t, String title) {
+        return t.title().equals(title) ? t : new ReportTable(title, t.headers(), t.rows(), t.rightAlign());
+    }
+}
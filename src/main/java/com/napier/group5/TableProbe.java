@@ -0,0 +1,130 @@
+package com.napier.group5;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cheap "has this table changed?" checks for the world tables.
+ *
+ * A fingerprint is a short string per table that changes whenever the table's
+ * contents change, one query per table:
+ *  - CHECKSUM:    the result of CHECKSUM TABLE (exact, reads the table once), or
+ *  - UPDATE_TIME: information_schema.TABLES.UPDATE_TIME with TABLE_ROWS from the
+ *                 same row (no scan, but InnoDB only tracks the time in memory and
+ *                 TABLE_ROWS is an estimate). MySQL 8 caches both for
+ *                 information_schema_stats_expiry seconds (a day by default), so the
+ *                 probe sets it to 0 for its session first.
+ */
+final class TableProbe {
+
+    /**
+     * How the per-table fingerprint is obtained.
+     */
+    enum Method { CHECKSUM, UPDATE_TIME }
+
+    /**
+     * Table names referenced after FROM or JOIN in a SQL text.
+     */
+    private static final Pattern TABLE_REF = Pattern.compile("(?i)\\b(?:FROM|JOIN)\\s+`?(\\w+)`?");
+
+    /**
+     * Only plain identifiers are ever put into probe SQL.
+     */
+    private static final Pattern IDENTIFIER = Pattern.compile("\\w+");
+
+    /**
+     * MySQL error for SET of a variable the server does not have.
+     */
+    private static final int ER_UNKNOWN_SYSTEM_VARIABLE = 1193;
+
+    private TableProbe() {
+    }
+
+    /**
+     * Computes a fingerprint for each table.
+     *
+     * @param con    Open JDBC connection
+     * @param method How to fingerprint
+     * @param tables Table names (plain identifiers)
+     * @return table name (lower case) -> fingerprint, sorted by name
+     * @throws SQLException if a probe query fails
+     */
+    static Map<String, String> fingerprints(Connection con, Method method, Collection<String> tables)
+            throws SQLException {
+        Map<String, String> out = new TreeMap<>();
+        if (method == Method.UPDATE_TIME) {
+            readLiveStatistics(con);
+        }
+        for (String t : tables) {
+            if (!IDENTIFIER.matcher(t).matches()) {
+                throw new IllegalArgumentException("Not a table name: " + t);
+            }
+            String name = t.toLowerCase(Locale.ROOT);
+            out.put(name, method == Method.CHECKSUM ? "checksum=" + checksum(con, name) : updateTime(con, name));
+        }
+        return out;
+    }
+
+    /**
+     * Lists the tables a SQL statement reads (every name after FROM or JOIN).
+     *
+     * @param sql SQL text
+     * @return table names in lower case, sorted
+     */
+    static Set<String> tablesIn(String sql) {
+        Set<String> tables = new TreeSet<>();
+        Matcher m = TABLE_REF.matcher(sql);
+        while (m.find()) {
+            tables.add(m.group(1).toLowerCase(Locale.ROOT));
+        }
+        return tables;
+    }
+
+    // -------------------------------------------------------------------------
+    // Individual probes
+    // -------------------------------------------------------------------------
+
+    private static String checksum(Connection con, String table) throws SQLException {
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("CHECKSUM TABLE `" + table + "`")) {
+            return rs.next() ? String.valueOf(rs.getObject(2)) : "none";
+        }
+    }
+
+    /**
+     * Makes information_schema.TABLES report current statistics on this connection
+     * instead of values cached for up to a day. Servers without the variable
+     * (MySQL 5.7) always read them live.
+     */
+    private static void readLiveStatistics(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("SET SESSION information_schema_stats_expiry = 0");
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_UNKNOWN_SYSTEM_VARIABLE) {
+                throw e;
+            }
+        }
+    }
+
+    private static String updateTime(Connection con, String table) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT TABLE_ROWS, UPDATE_TIME FROM information_schema.TABLES "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? "rows=" + rs.getObject(1) + ";updated=" + rs.getObject(2) : "none";
+            }
+        }
+    }
+}
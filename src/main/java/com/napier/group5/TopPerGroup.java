@@ -0,0 +1,91 @@
+package com.napier.group5;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static com.napier.group5.ReportTemplate.*;
+
+/**
+ * Top-N reports for every group at once (REPORT_MODE=groups).
+ *
+ * Reports 13–16, 21 and 22 each rank one hard-coded continent, region, country or
+ * district. Here a single window-function query ranks every group (see
+ * {@link ReportTemplate#topPerGroupSql()}) and the result is split into one table
+ * per group, titled like the equivalent {@link ReportCatalog#adHoc} report.
+ */
+final class TopPerGroup {
+
+    /**
+     * The grouped templates behind reports 13–16, 21 and 22.
+     */
+    static final List<ReportTemplate> SUITE = List.of(
+            CITIES_BY_CONTINENT, CITIES_BY_REGION, CITIES_BY_COUNTRY, CITIES_BY_DISTRICT,
+            CAPITALS_BY_CONTINENT, CAPITALS_BY_REGION);
+
+    private TopPerGroup() {
+    }
+
+    /**
+     * Fetches the top {@code n} rows of every group with one query (through the result
+     * cache when one is set) and splits them per group.
+     *
+     * @param con Open JDBC connection
+     * @param t   Template filtered on a group ({@link ReportTemplate#groupable()})
+     * @param n   Rows per group (at least 1)
+     * @return one table per group, in group order
+     * @throws SQLException if the query fails
+     */
+    static List<ReportTable> fetch(Connection con, ReportTemplate t, int n) throws SQLException {
+        if (n < 1) {
+            throw new IllegalArgumentException("Rows per group must be at least 1: " + n);
+        }
+        String[] cols = t.cols();
+        String[] withGroup = new String[cols.length + 1];
+        withGroup[0] = GROUP_KEY;
+        System.arraycopy(cols, 0, withGroup, 1, cols.length);
+
+        ReportTable ranked = App.fetchTable(con, t.label(), t.topPerGroupSql(), List.of(n), withGroup);
+        return split(ranked, t, n);
+    }
+
+    /**
+     * Splits rows whose first column is the group into one table per group,
+     * without that column. Rows of a group must be adjacent.
+     *
+     * @param ranked Rows with the group in column 0
+     * @param t      Template, for the titles
+     * @param n      Rows per group, for the titles
+     * @return one table per group
+     */
+    static List<ReportTable> split(ReportTable ranked, ReportTemplate t, int n) {
+        String[] headers = Arrays.copyOfRange(ranked.headers(), 1, ranked.headers().length);
+        boolean[] right = Arrays.copyOfRange(ranked.rightAlign(), 1, ranked.rightAlign().length);
+
+        List<ReportTable> out = new ArrayList<>();
+        List<String[]> rows = null;
+        String group = null;
+        for (String[] r : ranked.rows()) {
+            if (rows == null || !Objects.equals(group, r[0])) {
+                if (rows != null) {
+                    out.add(table(t, n, group, headers, rows, right));
+                }
+                group = r[0];
+                rows = new ArrayList<>();
+            }
+            rows.add(Arrays.copyOfRange(r, 1, r.length));
+        }
+        if (rows != null) {
+            out.add(table(t, n, group, headers, rows, right));
+        }
+        return out;
+    }
+
+    private static ReportTable table(ReportTemplate t, int n, String group, String[] headers,
+                                     List<String[]> rows, boolean[] right) {
+        return new ReportTable(ReportCatalog.adHoc(t, n, group).title(), headers, rows, right);
+    }
+}
@@ -0,0 +1,589 @@
+package com.napier.group5;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fills the {@code world} schema with synthetic data at a multiple of the sample
+ * database's size, so the reports can be load tested at realistic volumes.
+ *
+ * At scale {@code s}:
+ *  - city:            4079 * s rows (the sample has 4079),
+ *  - country:         239 * sqrt(s) rows, at most 17576 (CHAR(3) codes of letters A–Z),
+ *  - countrylanguage: about 4 * sqrt(s) languages per country, so about 984 * s rows.
+ *
+ * Distributions are skewed like the real data: cities per country follow a Zipf law
+ * (a few countries hold most cities), city sizes within a country fall off with
+ * rank, and a handful of languages are spoken almost everywhere. Countries with
+ * the names, districts and cities the report catalog filters on (Argentina, Spain,
+ * Limburg, London, ...) always exist, so every report returns rows.
+ *
+ * Referential consistency is kept by construction: every city.CountryCode is a
+ * generated country, every country.Capital is the ID of one of that country's cities
+ * (NULL for the Antarctica countries, which have no cities), and countrylanguage
+ * only references generated countries, each language once per country.
+ *
+ * The same scale and seed always produce the same data.
+ *
+ * Usage:
+ *   java -cp app.jar com.napier.group5.WorldGenerator [scale] [host:port]
+ * with DB_NAME, DB_USER, DB_PASSWORD as for {@link App}, GEN_SEED (default 42),
+ * GEN_BATCH_SIZE (rows per batch, default 5000) and GEN_REPLACE=1 to delete the
+ * rows already in the tables (otherwise only empty tables are filled).
+ */
+public final class WorldGenerator {
+
+    /**
+     * Logger for progress messages.
+     */
+    private static final Logger log = Logger.getLogger(WorldGenerator.class.getName());
+
+    // -------------------------------------------------------------------------
+    // Sizes and fixed data
+    // -------------------------------------------------------------------------
+
+    static final int SAMPLE_COUNTRIES = 239;
+    static final int SAMPLE_CITIES = 4079;
+    static final int SAMPLE_LANGUAGES_PER_COUNTRY = 4;
+    static final int SAMPLE_LANGUAGES = 457;
+
+    /**
+     * Number of distinct three-letter country codes.
+     */
+    static final int MAX_COUNTRIES = 26 * 26 * 26;
+
+    /**
+     * Largest supported scale (about 4 million cities per 1000).
+     */
+    static final int MAX_SCALE = 10_000;
+
+    /**
+     * The three world tables, in load order (countries first, for the foreign keys).
+     */
+    enum Table {
+        COUNTRY("country", 15),
+        CITY("city", 5),
+        COUNTRYLANGUAGE("countrylanguage", 4);
+
+        private final String table;
+        private final int columns;
+
+        Table(String table, int columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        /**
+         * @return the table name in the schema
+         */
+        String table() {
+            return table;
+        }
+
+        /**
+         * @return INSERT with one placeholder per column, in schema column order
+         */
+        String insertSql() {
+            return "INSERT INTO `" + table + "` VALUES (" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        }
+    }
+
+    /**
+     * Receives generated rows, in {@link Table} order, values in schema column order.
+     */
+    @FunctionalInterface
+    interface RowSink {
+        void row(Table table, Object[] values) throws SQLException;
+    }
+
+    /**
+     * Continent and region pairs of the sample database (Antarctica last).
+     */
+    private static final String[][] REGIONS = {
+            {"Africa", "Central Africa"}, {"Africa", "Eastern Africa"}, {"Africa", "Northern Africa"},
+            {"Africa", "Southern Africa"}, {"Africa", "Western Africa"},
+            {"Asia", "Eastern Asia"}, {"Asia", "Middle East"}, {"Asia", "Southeast Asia"},
+            {"Asia", "Southern and Central Asia"},
+            {"Europe", "Baltic Countries"}, {"Europe", "British Islands"}, {"Europe", "Eastern Europe"},
+            {"Europe", "Nordic Countries"}, {"Europe", "Southern Europe"}, {"Europe", "Western Europe"},
+            {"North America", "Caribbean"}, {"North America", "Central America"},
+            {"North America", "North America"},
+            {"Oceania", "Australia and New Zealand"}, {"Oceania", "Melanesia"}, {"Oceania", "Micronesia"},
+            {"Oceania", "Micronesia/Caribbean"}, {"Oceania", "Polynesia"},
+            {"South America", "South America"},
+            {"Antarctica", "Antarctica"}
+    };
+
+    /**
+     * Countries generated first with fixed code, name, continent and region,
+     * so the report catalog's filter values all match.
+     */
+    private static final String[][] NAMED_COUNTRIES = {
+            {"CHN", "China", "Asia", "Eastern Asia"},
+            {"IND", "India", "Asia", "Southern and Central Asia"},
+            {"USA", "United States", "North America", "North America"},
+            {"GBR", "United Kingdom", "Europe", "British Islands"},
+            {"ARG", "Argentina", "South America", "South America"},
+            {"ESP", "Spain", "Europe", "Southern Europe"},
+            {"NLD", "Netherlands", "Europe", "Western Europe"},
+            {"CAF", "Central African Republic", "Africa", "Central Africa"}
+    };
+
+    /**
+     * Cities given a fixed name and district: country code, city, district.
+     */
+    private static final String[][] NAMED_CITIES = {
+            {"GBR", "London", "England"},
+            {"NLD", "Amsterdam", "Noord-Holland"},
+            {"NLD", "Maastricht", "Limburg"},
+            {"NLD", "Heerlen", "Limburg"}
+    };
+
+    /**
+     * The most widely spoken languages, including every language report 32 asks for.
+     */
+    private static final String[] NAMED_LANGUAGES = {"Chinese", "English", "Hindi", "Spanish", "Arabic"};
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ra", "ten", "vo", "sa", "bel", "dor", "an",
+            "is", "ur", "zen", "po", "li", "ma", "tor", "ga", "ne", "shi"
+    };
+
+    private static final String[] GOVERNMENT_FORMS = {
+            "Republic", "Constitutional Monarchy", "Federal Republic", "Monarchy", "Dependent Territory"
+    };
+
+    // -------------------------------------------------------------------------
+    // Generation
+    // -------------------------------------------------------------------------
+
+    private final long seed;
+    private final int countryCount;
+    private final int cityCount;
+    private final int languagesPerCountry;
+    private final int languagePool;
+
+    /**
+     * @param scale Multiple of the sample database's size (1 to {@link #MAX_SCALE})
+     * @param seed  Random seed; the same scale and seed give the same data
+     */
+    WorldGenerator(int scale, long seed) {
+        if (scale < 1 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 1 and " + MAX_SCALE + ": " + scale);
+        }
+        double root = Math.sqrt(scale);
+        this.seed = seed;
+        this.countryCount = (int) Math.min(MAX_COUNTRIES, Math.round(SAMPLE_COUNTRIES * root));
+        this.cityCount = SAMPLE_CITIES * scale;
+        this.languagesPerCountry = (int) Math.round(SAMPLE_LANGUAGES_PER_COUNTRY * root);
+        this.languagePool = (int) Math.round(SAMPLE_LANGUAGES * root);
+    }
+
+    int countryCount() {
+        return countryCount;
+    }
+
+    int cityCount() {
+        return cityCount;
+    }
+
+    /**
+     * Generates every row: all countries, then all cities, then all languages.
+     * Only per-country summaries and city populations are kept in memory.
+     *
+     * @param out Receives the rows
+     * @throws SQLException if the sink fails
+     */
+    void generate(RowSink out) throws SQLException {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int n = countryCount;
+
+        // 1. Codes, names and regions
+        String[] code = new String[n];
+        String[] name = new String[n];
+        String[][] region = new String[n][];
+        Set<String> usedCodes = new HashSet<>();
+        Set<String> usedNames = new HashSet<>();
+        for (int i = 0; i < NAMED_COUNTRIES.length && i < n; i++) {
+            String[] c = NAMED_COUNTRIES[i];
+            code[i] = c[0];
+            name[i] = c[1];
+            region[i] = new String[]{c[2], c[3]};
+            usedCodes.add(code[i]);
+            usedNames.add(name[i]);
+        }
+        for (int i = NAMED_COUNTRIES.length; i < n; i++) {
+            do {
+                code[i] = String.valueOf(new char[]{letter(rnd), letter(rnd), letter(rnd)});
+            } while (!usedCodes.add(code[i]));
+            do {
+                name[i] = word(rnd, 2, 4);
+            } while (!usedNames.add(name[i]));
+            // About 2% of countries are uninhabited Antarctic territories
+            region[i] = rnd.nextInt(50) == 0 ? REGIONS[REGIONS.length - 1]
+                                             : REGIONS[rnd.nextInt(REGIONS.length - 1)];
+        }
+
+        // 2. Cities per country: Zipf over a random ranking, named countries among the largest
+        int[] cities = cityCounts(rnd, region);
+
+        // 3. City populations: each country's cities fall off with rank from a log-normal top city
+        int[][] pop = new int[n][];
+        long[] urban = new long[n];
+        for (int i = 0; i < n; i++) {
+            pop[i] = new int[cities[i]];
+            double top = Math.min(30_000_000, Math.max(1_000, Math.exp(Math.log(400_000) + rnd.nextGaussian())));
+            for (int k = 0; k < cities[i]; k++) {
+                double size = top / Math.pow(k + 1, 0.9) * (0.8 + 0.4 * rnd.nextDouble());
+                pop[i][k] = (int) Math.max(100, Math.round(size));
+                urban[i] += pop[i][k];
+            }
+        }
+
+        // 4. Countries, with the capital's ID known in advance (IDs are assigned in country order)
+        int[] firstId = new int[n];
+        int nextId = 1;
+        for (int i = 0; i < n; i++) {
+            firstId[i] = nextId;
+            nextId += cities[i];
+
+            Integer capital = null;
+            long population = 0;
+            if (cities[i] > 0) {
+                // Usually the largest city, otherwise one of the next few
+                capital = firstId[i] + (rnd.nextInt(10) < 7 ? 0 : rnd.nextInt(Math.min(cities[i], 5)));
+                double urbanShare = 0.15 + 0.7 * rnd.nextDouble();
+                population = Math.min(Integer.MAX_VALUE, Math.round(urban[i] / urbanShare));
+            }
+            boolean inhabited = population > 0;
+            out.row(Table.COUNTRY, new Object[]{
+                    code[i], name[i], region[i][0], region[i][1],
+                    money(rnd, 10, 10_000_000),                                   // SurfaceArea
+                    inhabited ? (Object) (1200 + rnd.nextInt(800)) : null,         // IndepYear
+                    (int) population,
+                    inhabited ? BigDecimal.valueOf(450 + rnd.nextInt(400), 1) : null, // LifeExpectancy
+                    inhabited ? money(rnd, 1, 9_000_000) : null,                   // GNP
+                    inhabited && rnd.nextBoolean() ? money(rnd, 1, 9_000_000) : null, // GNPOld
+                    name[i],                                                       // LocalName
+                    GOVERNMENT_FORMS[rnd.nextInt(GOVERNMENT_FORMS.length)],
+                    inhabited ? word(rnd, 2, 3) + " " + word(rnd, 2, 4) : null,    // HeadOfState
+                    capital,
+                    code[i].substring(0, 2)                                         // Code2
+            });
+        }
+
+        // 5. Cities
+        for (int i = 0; i < n; i++) {
+            int districts = Math.max(1, (int) Math.round(Math.sqrt(cities[i])));
+            String[] district = new String[districts];
+            for (int d = 0; d < districts; d++) {
+                district[d] = word(rnd, 2, 4);
+            }
+            int named = 0;
+            for (int k = 0; k < cities[i]; k++) {
+                String cityName = null;
+                String cityDistrict = null;
+                while (named < NAMED_CITIES.length && cityName == null) {
+                    String[] c = NAMED_CITIES[named++];
+                    if (c[0].equals(code[i])) {
+                        cityName = c[1];
+                        cityDistrict = c[2];
+                    }
+                }
+                if (cityName == null) {
+                    named = NAMED_CITIES.length;
+                    cityName = word(rnd, 2, 4);
+                    cityDistrict = district[rnd.nextInt(districts)];
+                }
+                out.row(Table.CITY, new Object[]{firstId[i] + k, cityName, code[i], cityDistrict, pop[i][k]});
+            }
+        }
+
+        // 6. Languages: popular ones everywhere, a long tail of local ones
+        String[] languages = languageNames(rnd);
+        Set<Integer> spoken = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            int count = Math.min(languages.length, 1 + rnd.nextInt(Math.max(1, 2 * languagesPerCountry - 1)));
+            spoken.clear();
+            double remaining = 100.0;
+            while (spoken.size() < count) {
+                // Log-uniform index: language k is picked with probability about 1/k
+                int l = (int) Math.pow(languages.length, rnd.nextDouble()) - 1;
+                if (!spoken.add(l)) {
+                    continue;
+                }
+                boolean first = spoken.size() == 1;
+                double share = remaining * (first ? 0.4 + 0.55 * rnd.nextDouble() : 0.1 + 0.5 * rnd.nextDouble());
+                BigDecimal percentage = BigDecimal.valueOf(share).setScale(1, RoundingMode.DOWN);
+                remaining -= percentage.doubleValue();
+                out.row(Table.COUNTRYLANGUAGE, new Object[]{
+                        code[i], languages[l], first || rnd.nextInt(10) == 0 ? "T" : "F", percentage});
+            }
+        }
+    }
+
+    /**
+     * Splits {@link #cityCount} over the countries with a Zipf law (exponent 1) over a
+     * random ranking. Named countries get the top ranks; Antarctic countries get no cities.
+     */
+    private int[] cityCounts(SplittableRandom rnd, String[][] region) {
+        int n = region.length;
+        Integer[] byRank = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byRank[i] = i;
+        }
+        // Shuffle the unnamed countries, keep the named ones first
+        for (int i = n - 1; i > NAMED_COUNTRIES.length; i--) {
+            int j = NAMED_COUNTRIES.length + rnd.nextInt(i - NAMED_COUNTRIES.length + 1);
+            Integer t = byRank[i];
+            byRank[i] = byRank[j];
+            byRank[j] = t;
+        }
+
+        double[] weight = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            int i = byRank[rank];
+            if (!"Antarctica".equals(region[i][0])) {
+                weight[i] = 1.0 / (rank + 1);
+                total += weight[i];
+            }
+        }
+        int[] counts = new int[n];
+        int assigned = 0;
+        for (int i = 0; i < n; i++) {
+            counts[i] = (int) (cityCount * weight[i] / total);
+            assigned += counts[i];
+        }
+        // Rounding leftovers go to the largest countries
+        for (int rank = 0; assigned < cityCount; rank = (rank + 1) % n) {
+            int i = byRank[rank];
+            if (weight[i] > 0) {
+                counts[i]++;
+                assigned++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Distinct language names: the named ones first (the most spoken), then generated ones.
+     */
+    private String[] languageNames(SplittableRandom rnd) {
+        int size = Math.max(NAMED_LANGUAGES.length, languagePool);
+        Set<String> names = new HashSet<>(Arrays.asList(NAMED_LANGUAGES));
+        List<String> out = new ArrayList<>(Arrays.asList(NAMED_LANGUAGES));
+        while (out.size() < size) {
+            String l = word(rnd, 2, 4) + "ic";
+            if (names.add(l)) {
+                out.add(l);
+            }
+        }
+        return out.toArray(new String[0]);
+    }
+
+    private static char letter(SplittableRandom rnd) {
+        return (char) ('A' + rnd.nextInt(26));
+    }
+
+    /**
+     * A capitalised made-up word of {@code min} to {@code max} syllables (at most 12 characters).
+     */
+    private static String word(SplittableRandom rnd, int min, int max) {
+        StringBuilder w = new StringBuilder();
+        int syllables = min + rnd.nextInt(max - min + 1);
+        for (int s = 0; s < syllables; s++) {
+            w.append(SYLLABLES[rnd.nextInt(SYLLABLES.length)]);
+        }
+        w.setCharAt(0, Character.toUpperCase(w.charAt(0)));
+        return w.toString();
+    }
+
+    /**
+     * A DECIMAL(10,2) value, log-uniform between {@code min} and {@code max}.
+     */
+    private static BigDecimal money(SplittableRandom rnd, double min, double max) {
+        double v = Math.exp(Math.log(min) + rnd.nextDouble() * (Math.log(max) - Math.log(min)));
+        return BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // -------------------------------------------------------------------------
+    // Loading
+    // -------------------------------------------------------------------------
+
+    /**
+     * Generates the data straight into the database with batched inserts.
+     *
+     * Use a connection opened with {@code rewriteBatchedStatements=true} so each batch
+     * goes to the server as a few multi-row INSERTs. Foreign key and unique checks are
+     * switched off for the session while loading (the data is consistent by
+     * construction) and the tables are analysed afterwards so the optimizer sees
+     * their new sizes.
+     *
+     * @param con       Open JDBC connection
+     * @param replace   true to delete existing rows first; otherwise the tables must be empty
+     * @param batchSize Rows per batch and per transaction
+     * @return rows inserted per table
+     * @throws SQLException          if loading fails
+     * @throws IllegalStateException if the tables hold data and {@code replace} is false
+     */
+    long[] load(Connection con, boolean replace, int batchSize) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            if (!replace) {
+                for (Table t : Table.values()) {
+                    try (ResultSet rs = st.executeQuery("SELECT 1 FROM `" + t.table() + "` LIMIT 1")) {
+                        if (rs.next()) {
+                            throw new IllegalStateException("Table " + t.table()
+                                    + " is not empty; set GEN_REPLACE=1 to replace its rows");
+                        }
+                    }
+                }
+            }
+
+            st.execute("SET foreign_key_checks = 0, unique_checks = 0");
+            boolean autoCommit = con.getAutoCommit();
+            try {
+                if (replace) {
+                    for (int t = Table.values().length - 1; t >= 0; t--) {
+                        st.execute("TRUNCATE TABLE `" + Table.values()[t].table() + "`");
+                    }
+                }
+                con.setAutoCommit(false);
+                try (BatchLoader loader = new BatchLoader(con, batchSize)) {
+                    generate(loader);
+                    loader.flush();
+                    return loader.counts();
+                }
+            } finally {
+                con.setAutoCommit(autoCommit);
+                st.execute("SET foreign_key_checks = 1, unique_checks = 1");
+                st.execute("ANALYZE TABLE country, city, countrylanguage");
+            }
+        }
+    }
+
+    /**
+     * Inserts rows with one prepared statement per table, executing and committing
+     * every {@code batchSize} rows.
+     */
+    static final class BatchLoader implements RowSink, AutoCloseable {
+
+        private final Connection con;
+        private final int batchSize;
+        private final long[] counts = new long[Table.values().length];
+        private Table current;
+        private PreparedStatement ps;
+        private int pending;
+
+        BatchLoader(Connection con, int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+            }
+            this.con = con;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void row(Table table, Object[] values) throws SQLException {
+            if (table != current) {
+                flush();
+                close();
+                ps = con.prepareStatement(table.insertSql());
+                current = table;
+                started(table);
+            }
+            for (int c = 0; c < values.length; c++) {
+                ps.setObject(c + 1, values[c]);
+            }
+            ps.addBatch();
+            counts[table.ordinal()]++;
+            if (++pending == batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Sends the pending rows and commits them.
+         */
+        void flush() throws SQLException {
+            if (pending > 0) {
+                ps.executeBatch();
+                con.commit();
+                pending = 0;
+            }
+        }
+
+        long[] counts() {
+            return counts.clone();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (ps != null) {
+                ps.close();
+                ps = null;
+            }
+        }
+
+        private static void started(Table table) {
+            if (log.isLoggable(Level.INFO)) {
+                log.info(() -> "Loading " + table.table() + "...");
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // main() – entry point
+    // -------------------------------------------------------------------------
+
+    /**
+     * Generates and loads the data.
+     *
+     * @param args [0] scale (default GEN_SCALE or 10), [1] host:port (default DB_HOST/DB_PORT)
+     */
+    public static void main(String[] args) {
+        int scale = Integer.parseInt(args.length >= 1 ? args[0] : App.env("GEN_SCALE", "10"));
+        String[] hp = App.resolveHostPort(args.length >= 2 ? new String[]{args[1]} : new String[0]);
+        String url = String.format(
+                "jdbc:mysql://%s:%s/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC"
+                        + "&rewriteBatchedStatements=true",
+                hp[0], hp[1], App.env("DB_NAME", "world"));
+
+        WorldGenerator gen = new WorldGenerator(scale, Long.parseLong(App.env("GEN_SEED", "42")));
+        boolean replace = "1".equals(App.env("GEN_REPLACE", "0"));
+        int batchSize = Integer.parseInt(App.env("GEN_BATCH_SIZE", "5000"));
+
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+            try (Connection con = App.connectWithRetry(url, App.env("DB_USER", "app"),
+                    App.env("DB_PASSWORD", "app123"), 12, Duration.ofSeconds(5))) {
+                long start = System.nanoTime();
+                long[] rows = gen.load(con, replace, batchSize);
+                if (log.isLoggable(Level.INFO)) {
+                    log.info(() -> String.format(Locale.ROOT,
+                            "Scale %d: %d countries, %d cities, %d languages loaded in %.1f s",
+                            scale, rows[0], rows[1], rows[2], (System.nanoTime() - start) / 1e9));
+                }
+            }
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Data generation failed", e);
+            System.exit(1);
+        }
+    }
+}
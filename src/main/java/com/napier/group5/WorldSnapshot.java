@@ -0,0 +1,816 @@
+package com.napier.group5;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * An in-memory copy of the three "world" tables (country, city, countrylanguage)
+ * that can answer every report in {@link ReportCatalog} without going back to MySQL.
+ *
+ * The tables are read once with three bulk SELECTs and kept as parallel primitive
+ * arrays (one array per column, one index per row); the city table, by far the
+ * largest, is kept off the heap in {@link CityColumns}. Reports are then computed in
+ * Java – filter, sort, top-N, group-by and percentages – and produce the same
+ * {@link ReportTable} that {@link App#fetchTable} would, so they print identically.
+ *
+ * A snapshot is immutable once loaded, so it can be shared between threads and
+ * reused for any number of report runs. Country names, city names and districts are
+ * indexed at load time ({@link NameIndex}), so the reports on one country, district
+ * or city are answered without scanning the cities. A snapshot can also be saved to
+ * a file and mapped back in later ({@link #save}, {@link #open}) to answer reports
+ * with no database.
+ */
+final class WorldSnapshot {
+
+    // Snapshot file format (see save)
+    private static final int FILE_MAGIC = 0x504E5357; // "WSNP" read little-endian
+    private static final int FILE_VERSION = 1;
+
+    // ---- country columns (index = country ordinal, ordered by Code) ----
+    private final String[] countryCode;
+    private final String[] countryName;
+    private final String[] continent;
+    private final String[] region;
+    private final int[] countryPop;
+    private final int[] capital;          // city ID of the capital, 0 when NULL
+
+    // ---- city columns (row = city ordinal, ordered by ID) ----
+    private final CityColumns cities;
+
+    // ---- countrylanguage columns ----
+    private final int[] langCountry;      // country ordinal, -1 when CountryCode is unknown
+    private final String[] language;
+    private final int[] langPct10;        // Percentage × 10 (the column is DECIMAL(4,1))
+
+    // ---- derived once at load time ----
+    private final long[] cityPopByCountry; // SUM(city.Population) per country
+    private final boolean[] hasCities;     // false where that SUM would be NULL in SQL
+    private final GroupSums.Keys continentKeys; // continent, region and name as group ordinals
+    private final GroupSums.Keys regionKeys;
+    private final GroupSums.Keys nameKeys;
+
+    // ---- lookup indexes, built at load time ----
+    private final NameIndex countryNameIndex;
+    private final NameIndex cityNameIndex;
+    private final NameIndex districtIndex;
+    private final int[] countryCitiesStart; // cities of country c: countryCities[start[c] .. start[c+1])
+    private final int[] countryCities;
+
+    // True when the city rows are per-country totals (see loadCountryTotals)
+    private final boolean totalsOnly;
+
+    /**
+     * Builds a snapshot from column arrays (one array per column, one index per row).
+     * City and language rows refer to countries by ordinal, -1 for an unknown code.
+     */
+    WorldSnapshot(String[] countryCode, String[] countryName, String[] continent, String[] region,
+                          int[] countryPop, int[] capital,
+                          int[] cityId, String[] cityName, int[] cityCountry, String[] district, int[] cityPop,
+                          int[] langCountry, String[] language, int[] langPct10) {
+        this(countryCode, countryName, continent, region, countryPop, capital,
+                CityColumns.of(cityId, cityName, cityCountry, district, cityPop),
+                langCountry, language, langPct10, false);
+    }
+
+    private WorldSnapshot(String[] countryCode, String[] countryName, String[] continent, String[] region,
+                          int[] countryPop, int[] capital, CityColumns cities,
+                          int[] langCountry, String[] language, int[] langPct10, boolean totalsOnly) {
+        this.totalsOnly = totalsOnly;
+        this.countryCode = countryCode;
+        this.countryName = countryName;
+        this.continent = continent;
+        this.region = region;
+        this.countryPop = countryPop;
+        this.capital = capital;
+        this.cities = cities;
+        this.langCountry = langCountry;
+        this.language = language;
+        this.langPct10 = langPct10;
+
+        // Pre-aggregate city population per country; several reports need it
+        this.hasCities = new boolean[countryCode.length];
+        this.cityPopByCountry = cities.sumByCountry(countryCode.length, hasCities);
+        this.continentKeys = GroupSums.Keys.of(continent);
+        this.regionKeys = GroupSums.Keys.of(region);
+        this.nameKeys = GroupSums.Keys.of(countryName);
+
+        // Name lookups for the single-country, single-district and single-city reports
+        this.countryNameIndex = NameIndex.build(countryName.length, c -> countryName[c]);
+        this.cityNameIndex = NameIndex.build(cities.size(), cities::name);
+        this.districtIndex = NameIndex.build(cities.size(), cities::district);
+        this.countryCitiesStart = new int[countryCode.length + 1];
+        for (int ci = 0; ci < cities.size(); ci++) {
+            if (cities.country(ci) >= 0) {
+                countryCitiesStart[cities.country(ci) + 1]++;
+            }
+        }
+        for (int c = 0; c < countryCode.length; c++) {
+            countryCitiesStart[c + 1] += countryCitiesStart[c];
+        }
+        this.countryCities = new int[countryCitiesStart[countryCode.length]];
+        int[] next = Arrays.copyOf(countryCitiesStart, countryCode.length);
+        for (int ci = 0; ci < cities.size(); ci++) {
+            int c = cities.country(ci);
+            if (c >= 0) {
+                countryCities[next[c]++] = ci;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Loading
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads country, city and countrylanguage with one SELECT each.
+     *
+     * @param con Open JDBC connection
+     * @return a snapshot of the three tables
+     * @throws SQLException if any of the reads fails
+     */
+    static WorldSnapshot load(Connection con) throws SQLException {
+        // country
+        List<String> code = new ArrayList<>();
+        List<String> name = new ArrayList<>();
+        List<String> cont = new ArrayList<>();
+        List<String> reg = new ArrayList<>();
+        IntList pop = new IntList();
+        IntList cap = new IntList();
+        Map<String, Integer> ordinal = new HashMap<>();
+
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT Code, Name, Continent, Region, Population, Capital FROM country ORDER BY Code");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                ordinal.put(rs.getString(1), code.size());
+                code.add(rs.getString(1));
+                name.add(rs.getString(2));
+                cont.add(rs.getString(3));
+                reg.add(rs.getString(4));
+                pop.add(rs.getInt(5));
+                int c = rs.getInt(6);
+                cap.add(rs.wasNull() ? 0 : c);
+            }
+        }
+
+        // city, straight into off-heap columns
+        CityColumns.Builder city = new CityColumns.Builder();
+
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT ID, Name, CountryCode, District, Population FROM city ORDER BY ID");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                city.add(rs.getInt(1), rs.getString(2), ordinal.getOrDefault(rs.getString(3), -1),
+                        rs.getString(4), rs.getInt(5));
+            }
+        }
+
+        // countrylanguage
+        IntList lcountry = new IntList();
+        List<String> lang = new ArrayList<>();
+        IntList pct = new IntList();
+
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT CountryCode, Language, Percentage FROM countrylanguage ORDER BY CountryCode, Language");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                lcountry.add(ordinal.getOrDefault(rs.getString(1), -1));
+                lang.add(rs.getString(2));
+                pct.add(rs.getBigDecimal(3).movePointRight(1).intValue());
+            }
+        }
+
+        return new WorldSnapshot(
+                code.toArray(new String[0]), name.toArray(new String[0]),
+                cont.toArray(new String[0]), reg.toArray(new String[0]),
+                pop.toArray(), cap.toArray(), city.build(),
+                lcountry.toArray(), lang.toArray(new String[0]), pct.toArray(), false);
+    }
+
+    /**
+     * Reads the country table together with each country's total city population,
+     * in one query that scans city once:
+     * {@code SELECT CountryCode, SUM(Population) FROM city GROUP BY CountryCode}.
+     *
+     * The result only answers the templates for which
+     * {@link ReportTemplate#usesCityTotals()} is true; it has no individual cities
+     * and no languages.
+     *
+     * @param con Open JDBC connection
+     * @return a snapshot holding countries and per-country city totals
+     * @throws SQLException if the read fails
+     */
+    static WorldSnapshot loadCountryTotals(Connection con) throws SQLException {
+        List<String> code = new ArrayList<>();
+        List<String> name = new ArrayList<>();
+        List<String> cont = new ArrayList<>();
+        List<String> reg = new ArrayList<>();
+        IntList pop = new IntList();
+        IntList cap = new IntList();
+
+        // One pseudo-city per country that has cities, holding the country's total
+        CityColumns.Builder city = new CityColumns.Builder();
+
+        try (PreparedStatement ps = con.prepareStatement("""
+                SELECT co.Code, co.Name, co.Continent, co.Region, co.Population, co.Capital, ci.City_Pop
+                FROM country co
+                LEFT JOIN (
+                    SELECT CountryCode, SUM(Population) AS City_Pop
+                    FROM city
+                    GROUP BY CountryCode
+                ) ci ON co.Code = ci.CountryCode
+                ORDER BY co.Code
+                """);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int ordinal = code.size();
+                code.add(rs.getString(1));
+                name.add(rs.getString(2));
+                cont.add(rs.getString(3));
+                reg.add(rs.getString(4));
+                pop.add(rs.getInt(5));
+                int c = rs.getInt(6);
+                cap.add(rs.wasNull() ? 0 : c);
+
+                long total = rs.getLong(7);
+                if (!rs.wasNull()) {
+                    city.add(ordinal + 1, "", ordinal, "", Math.toIntExact(total));
+                }
+            }
+        }
+
+        return new WorldSnapshot(
+                code.toArray(new String[0]), name.toArray(new String[0]),
+                cont.toArray(new String[0]), reg.toArray(new String[0]),
+                pop.toArray(), cap.toArray(), city.build(),
+                new int[0], new String[0], new int[0], true);
+    }
+
+    /**
+     * @return number of countries in the snapshot
+     */
+    int countryCount() {
+        return countryCode.length;
+    }
+
+    /**
+     * @return number of cities in the snapshot
+     */
+    int cityCount() {
+        return cities.size();
+    }
+
+    /**
+     * @return number of countrylanguage rows in the snapshot
+     */
+    int languageCount() {
+        return language.length;
+    }
+
+    /**
+     * Columns that can be searched by name.
+     */
+    enum Lookup { COUNTRY, CITY, DISTRICT }
+
+    /**
+     * Type-ahead over country names, city names or districts (see {@link NameIndex#suggest}).
+     *
+     * @param field  Column to search
+     * @param prefix Typed so far, any case
+     * @param limit  Maximum number of suggestions
+     * @return distinct matching names, alphabetically
+     */
+    List<String> suggest(Lookup field, String prefix, int limit) {
+        return index(field).suggest(prefix, limit);
+    }
+
+    /**
+     * Rows whose name equals {@code name} ignoring case: country ordinals for
+     * {@link Lookup#COUNTRY}, city ordinals otherwise.
+     */
+    int[] find(Lookup field, String name) {
+        return index(field).find(name);
+    }
+
+    private NameIndex index(Lookup field) {
+        return switch (field) {
+            case COUNTRY -> countryNameIndex;
+            case CITY -> cityNameIndex;
+            case DISTRICT -> districtIndex;
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Snapshot file
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes the snapshot to a file that {@link #open} maps back in, so reports can be
+     * answered without a database (REPORT_MODE=export, then REPORT_MODE=offline).
+     *
+     * Layout, little-endian: magic {@code "WSNP"}, format version, country rows,
+     * language rows, then the city columns exactly as {@link CityColumns} holds them,
+     * starting at an 8-byte boundary. Strings are a length and UTF-8 bytes.
+     * The file is written under a temporary name and moved into place.
+     *
+     * @param file Target file
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if this snapshot only holds country totals
+     */
+    void save(Path file) throws IOException {
+        if (totalsOnly) {
+            throw new IllegalStateException("Country totals cannot be saved as a snapshot");
+        }
+        FileHeader out = new FileHeader();
+        out.putInt(FILE_MAGIC).putInt(FILE_VERSION);
+        out.putInt(countryCode.length);
+        for (int c = 0; c < countryCode.length; c++) {
+            out.putString(countryCode[c]).putString(countryName[c]).putString(continent[c]).putString(region[c])
+                    .putInt(countryPop[c]).putInt(capital[c]);
+        }
+        out.putInt(language.length);
+        for (int l = 0; l < language.length; l++) {
+            out.putInt(langCountry[l]).putString(language[l]).putInt(langPct10[l]);
+        }
+        ByteBuffer city = cities.bytes();
+        out.putInt(cities.size()).putLong(city.remaining()).align(8);
+
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer header = out.buffer();
+            while (header.hasRemaining()) {
+                ch.write(header);
+            }
+            while (city.hasRemaining()) {
+                ch.write(city);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a file written by {@link #save}. Countries and languages are decoded onto
+     * the heap (a few thousand rows); the city columns are used in place from the
+     * mapping, and only the name indexes are built from them.
+     *
+     * @param file Snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, or has another format version
+     */
+    static WorldSnapshot open(Path file) throws IOException {
+        ByteBuffer in;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            if (in.getInt() != FILE_MAGIC) {
+                throw new IOException("Not a world snapshot: " + file);
+            }
+            int version = in.getInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Snapshot " + file + " has format version " + version
+                        + ", expected " + FILE_VERSION + "; export it again");
+            }
+            int countries = in.getInt();
+            String[] code = new String[countries];
+            String[] name = new String[countries];
+            String[] cont = new String[countries];
+            String[] reg = new String[countries];
+            int[] pop = new int[countries];
+            int[] cap = new int[countries];
+            for (int c = 0; c < countries; c++) {
+                code[c] = getString(in);
+                name[c] = getString(in);
+                cont[c] = getString(in);
+                reg[c] = getString(in);
+                pop[c] = in.getInt();
+                cap[c] = in.getInt();
+            }
+            int languages = in.getInt();
+            int[] lcountry = new int[languages];
+            String[] lang = new String[languages];
+            int[] pct = new int[languages];
+            for (int l = 0; l < languages; l++) {
+                lcountry[l] = in.getInt();
+                lang[l] = getString(in);
+                pct[l] = in.getInt();
+            }
+            int cityRows = in.getInt();
+            long cityBytes = in.getLong();
+            int start = (in.position() + 7) & ~7;
+            if (start + cityBytes != in.limit()) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            CityColumns city = CityColumns.wrap(cityRows, in.slice(start, (int) cityBytes));
+            return new WorldSnapshot(code, name, cont, reg, pop, cap, city, lcountry, lang, pct, false);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Snapshot " + file + " is damaged", e);
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Growable little-endian buffer for the part of the file before the city columns.
+     */
+    private static final class FileHeader {
+        private ByteBuffer b = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        FileHeader putInt(int v) {
+            ensure(Integer.BYTES).putInt(v);
+            return this;
+        }
+
+        FileHeader putLong(long v) {
+            ensure(Long.BYTES).putLong(v);
+            return this;
+        }
+
+        FileHeader putString(String s) {
+            byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+            return this;
+        }
+
+        FileHeader align(int to) {
+            int pad = -b.position() & (to - 1);
+            ensure(pad).put(new byte[pad]);
+            return this;
+        }
+
+        ByteBuffer buffer() {
+            return b.duplicate().flip();
+        }
+
+        private ByteBuffer ensure(int more) {
+            if (b.remaining() < more) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(b.capacity() * 2, b.position() + more))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                b = bigger.put(b.flip());
+            }
+            return b;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Report dispatch
+    // -------------------------------------------------------------------------
+
+    /**
+     * Computes a report from the in-memory tables.
+     * report's parameters; text comparisons ignore case and accents like the schema's collation.
+     * report's parameters; text comparisons are case-insensitive like MySQL's default collation.
+     *
+     * @param r Report to compute
+     * @return the same table the SQL version would produce
+     * @throws IllegalArgumentException if this snapshot only holds country totals
+     *                                  and the report needs more
+     */
+    ReportTable compute(Report r) {
+        if (totalsOnly && !r.template().usesCityTotals()) {
+            throw new IllegalArgumentException("Country totals cannot answer " + r.template());
+        }
+        int n = r.limit();
+        return switch (r.template()) {
+            case COUNTRIES_WORLD -> countries(r, c -> true, n);
+            case COUNTRIES_BY_CONTINENT -> countries(r, c -> same(continent[c], param(r)), n);
+            case COUNTRIES_BY_REGION -> countries(r, c -> same(region[c], param(r)), n);
+
+            case CITIES_WORLD -> cities(r, cities.select(ci -> true), n);
+            case CITIES_BY_CONTINENT -> cities(r, cities.select(inCountry(c -> same(continent[c], param(r)))), n);
+            case CITIES_BY_REGION -> cities(r, cities.select(inCountry(c -> same(region[c], param(r)))), n);
+            case CITIES_BY_COUNTRY -> cities(r, citiesOf(countryNameIndex.find(param(r))), n);
+            case CITIES_BY_DISTRICT -> cities(r, districtIndex.find(param(r)), n);
+
+            case CAPITALS_WORLD -> capitals(r, c -> true, n);
+            case CAPITALS_BY_CONTINENT -> capitals(r, c -> same(continent[c], param(r)), n);
+            case CAPITALS_BY_REGION -> capitals(r, c -> same(region[c], param(r)), n);
+
+            case POPULATION_BY_CONTINENT -> populationBy(r, continentKeys, c -> true);
+            case POPULATION_BY_REGION -> populationBy(r, regionKeys, c -> true);
+            case POPULATION_BY_COUNTRY -> populationByCountry(r);
+            case WORLD_POPULATION -> worldPopulation(r);
+            case CONTINENT_POPULATION -> populationBy(r, continentKeys, c -> same(continent[c], param(r)));
+            case REGION_POPULATION -> populationBy(r, regionKeys, c -> same(region[c], param(r)));
+            case COUNTRY_POPULATION -> populationBy(r, nameKeys, countryNameIndex.find(param(r)));
+            case DISTRICT_POPULATION -> populationByCities(r, cities::district, districtIndex.find(param(r)));
+            case CITY_POPULATION -> populationByCities(r, cities::name, cityNameIndex.find(param(r)));
+
+            case LANGUAGE_SPEAKERS -> languages(r, r.params().stream().map(String::valueOf).toArray(String[]::new));
+        };
+    }
+
+    /**
+     * The single filter value of a report (continent, region, country, district or city name).
+     */
+    private static String param(Report r) {
+        return String.valueOf(r.params().get(0));
+    }
+
+    // -------------------------------------------------------------------------
+    // Country / city / capital reports
+    // -------------------------------------------------------------------------
+
+    /**
+     * Countries matching {@code keep}, by population descending (reports 1–6).
+     */
+    private ReportTable countries(Report r, IntPredicate keep, int limit) {
+        int[] order = byPopulationDesc(IntStream.range(0, countryCode.length).filter(keep), countryPop);
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < take(order, limit); i++) {
+            int c = order[i];
+            rows.add(new String[]{
+                    countryCode[c], countryName[c], continent[c], region[c],
+                    Integer.toString(countryPop[c]),
+                    capital[c] == 0 ? "" : Integer.toString(capital[c])
+            });
+        }
+        return new ReportTable(r.title(), r.cols(), rows, new boolean[]{false, false, false, false, true, true});
+    }
+
+    /**
+     * The selected cities, by population descending (reports 7–16).
+     */
+    private ReportTable cities(Report r, int[] selected, int limit) {
+        int[] order = cities.byPopulationDesc(selected);
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < take(order, limit); i++) {
+            int ci = order[i];
+            int c = cities.country(ci);
+            rows.add(new String[]{
+                    cities.name(ci), c < 0 ? "" : countryName[c], cities.district(ci),
+                    Integer.toString(cities.population(ci))
+            });
+        }
+        return new ReportTable(r.title(), r.cols(), rows, new boolean[]{false, false, false, true});
+    }
+
+    /**
+     * Capital cities of the countries matching {@code keep}, by city population
+     * descending (reports 17–22).
+     */
+    private ReportTable capitals(Report r, IntPredicate keep, int limit) {
+        // Capital row per country, kept by country so the row prints the owning
+        // country (country.Name in the SQL join), not the city's own CountryCode
+        int[] capitalRow = new int[countryCode.length];
+        int[] capitalPop = new int[countryCode.length];
+        for (int c = 0; c < countryCode.length; c++) {
+            capitalRow[c] = capital[c] != 0 && keep.test(c) ? cities.find(capital[c]) : -1;
+            capitalPop[c] = capitalRow[c] < 0 ? 0 : cities.population(capitalRow[c]);
+        }
+        int[] order = byPopulationDesc(IntStream.range(0, countryCode.length).filter(c -> capitalRow[c] >= 0),
+                capitalPop);
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < take(order, limit); i++) {
+            int c = order[i];
+            int ci = capitalRow[c];
+            rows.add(new String[]{
+                    cities.name(ci), countryName[c], Integer.toString(cities.population(ci))
+            });
+        }
+        return new ReportTable(r.title(), r.cols(), rows, new boolean[]{false, false, true});
+    }
+
+    // -------------------------------------------------------------------------
+    // Population reports
+    // -------------------------------------------------------------------------
+
+    /**
+     * Total population and in/not-in-cities percentages, grouped by a country
+     * attribute (continent, region or name) – reports 23, 24, 27, 28, 29.
+     */
+    private ReportTable populationBy(Report r, GroupSums.Keys keys, IntPredicate keep) {
+        GroupSums sums = new GroupSums(keys.names());
+        int[] group = keys.ordinals();
+        for (int c = 0; c < countryCode.length; c++) {
+            if (keep.test(c)) {
+                sums.add(group[c], countryPop[c], cityPopByCountry[c], hasCities[c]);
+            }
+        }
+        return sums.table(r, false);
+    }
+
+    /**
+     * Same as {@link #populationBy(Report, GroupSums.Keys, IntPredicate)} for countries
+     * already looked up (report 29).
+     */
+    private ReportTable populationBy(Report r, GroupSums.Keys keys, int[] countries) {
+        GroupSums sums = new GroupSums(keys.names());
+        for (int c : countries) {
+            sums.add(keys.ordinals()[c], countryPop[c], cityPopByCountry[c], hasCities[c]);
+        }
+        return sums.table(r, false);
+    }
+
+    /**
+     * Per-country population and in/not-in-cities percentages (report 25).
+     */
+    private ReportTable populationByCountry(Report r) {
+        int[] order = byPopulationDesc(IntStream.range(0, countryCode.length), countryPop);
+        List<String[]> rows = new ArrayList<>();
+        for (int c : order) {
+            long total = countryPop[c];
+            long inCities = cityPopByCountry[c];
+            rows.add(new String[]{
+                    countryName[c], Long.toString(total),
+                    hasCities[c] ? GroupSums.percent(inCities, total) : "",
+                    hasCities[c] ? GroupSums.percentNot(inCities, total) : ""
+            });
+        }
+        return new ReportTable(r.title(), r.cols(), rows, new boolean[]{false, true, true, true});
+    }
+
+    /**
+     * Total population and percentages for groups of cities (district or city name),
+     * where the "not in cities" part is measured against the population of every
+     * country that has a city in the group – reports 30 and 31. Only the selected
+     * cities are decoded to get their group key.
+     */
+    private ReportTable populationByCities(Report r, IntFunction<String> key, int[] selected) {
+        String[] column = new String[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            column[i] = key.apply(selected[i]);
+        }
+        GroupSums.Keys keys = GroupSums.Keys.of(column);
+        GroupSums sums = new GroupSums(keys.names());
+        // Each country counts once per group towards the denominator
+        boolean[][] countriesSeen = new boolean[keys.names().length][];
+        for (int i = 0; i < selected.length; i++) {
+            int ci = selected[i];
+            int c = cities.country(ci);
+            if (c < 0) {
+                continue;
+            }
+            int g = keys.ordinals()[i];
+            if (countriesSeen[g] == null) {
+                countriesSeen[g] = new boolean[countryCode.length];
+            }
+            boolean first = !countriesSeen[g][c];
+            countriesSeen[g][c] = true;
+            sums.add(g, first ? countryPop[c] : 0, cities.population(ci), true);
+        }
+        return sums.table(r, true);
+    }
+
+    /**
+     * World population as a single number (report 26).
+     */
+    private ReportTable worldPopulation(Report r) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{Long.toString(totalPopulation())});
+        return new ReportTable(r.title(), r.cols(), rows, new boolean[]{true});
+    }
+
+    // -------------------------------------------------------------------------
+    // Language report
+    // -------------------------------------------------------------------------
+
+    /**
+     * Number of speakers and share of world population for the given languages (report 32).
+     */
+    private ReportTable languages(Report r, String... wanted) {
+        // language -> SUM(Population × Percentage × 10)
+        Map<String, Long> speakers10 = new LinkedHashMap<>();
+        for (int l = 0; l < language.length; l++) {
+            int c = langCountry[l];
+            if (c < 0) {
+                continue;
+            }
+            for (String w : wanted) {
+                if (same(language[l], w)) {
+                    speakers10.merge(language[l], (long) countryPop[c] * langPct10[l], Long::sum);
+                }
+            }
+        }
+
+        BigDecimal world = BigDecimal.valueOf(totalPopulation());
+        List<String[]> rows = new ArrayList<>();
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(speakers10.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        for (Map.Entry<String, Long> e : entries) {
+            // Population × Percentage / 100, with Percentage stored ×10
+            BigDecimal people = BigDecimal.valueOf(e.getValue()).movePointLeft(3);
+            String share = world.signum() == 0 ? "" : CellFormatter.formatDecimal(
+                    people.multiply(BigDecimal.valueOf(100)).divide(world, 2, RoundingMode.HALF_UP));
+            rows.add(new String[]{
+                    e.getKey(), people.setScale(0, RoundingMode.HALF_UP).toPlainString(), share
+            });
+        }
+        return new ReportTable(r.title(), r.cols(), rows, new boolean[]{false, true, true});
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * @return SUM(country.Population)
+     */
+    private long totalPopulation() {
+        long total = 0;
+        for (int p : countryPop) {
+            total += p;
+        }
+        return total;
+    }
+
+    /**
+     * @return the cities of the given countries, in row order
+     */
+    private int[] citiesOf(int[] countries) {
+        IntStream.Builder out = IntStream.builder();
+        for (int c : countries) {
+            for (int i = countryCitiesStart[c]; i < countryCitiesStart[c + 1]; i++) {
+                out.add(countryCities[i]);
+            }
+        }
+        return out.build().sorted().toArray();
+    }
+
+    /**
+     * Lifts a country filter to a city filter (the city's country must match).
+     */
+    private IntPredicate inCountry(IntPredicate keep) {
+        return ci -> cities.country(ci) >= 0 && keep.test(cities.country(ci));
+    }
+
+    /**
+     * Sorts the candidate row indexes by population, largest first. The sort is stable,
+     * so ties keep load order.
+     */
+    private static int[] byPopulationDesc(IntStream candidates, int[] pop) {
+        return candidates.boxed()
+                .sorted((a, b) -> Integer.compare(pop[b], pop[a]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Number of rows to output: everything when {@code limit} is 0, otherwise at most {@code limit}.
+     */
+    private static int take(int[] order, int limit) {
+        return limit > 0 ? Math.min(limit, order.length) : order.length;
+    }
+
+    /**
+     * Text comparison ignoring case and accents, as '=' compares under the schema's
+     * utf8mb4_0900_ai_ci collation (see {@link NameIndex#fold} for what is not covered).
+     */
+    private static boolean same(String a, String b) {
+        return a != null && NameIndex.fold(a).equals(NameIndex.fold(b));
+    }
+
+    /**
+     * Minimal growable int array used while loading, to avoid boxing every value.
+     */
+    private static final class IntList {
+        private int[] a = new int[256];
+        private int n;
+
+        void add(int v) {
+            if (n == a.length) {
+                a = Arrays.copyOf(a, n * 2);
+            }
+            a[n++] = v;
+        }
+
+        int size() {
+            return n;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(a, n);
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.*;
@@ -94,6 +96,10 @@ public class AppIntegrationTest {
         // Ensure the connection is valid
         assertNotNull(con);
         logger.info("Connected to MySQL for integration tests.");
+
+        // Tables normally go to stdout; route them through the logger so the
+        // tests below can capture them with a log handler
+        App.sink = ReportSink.logger(logger);
     }
 
     // -------------------------------------------------------------------------
@@ -871,4 +877,238 @@ public class AppIntegrationTest {
 
         printTable.invoke(null, "Empty Table", headers, rows, right);
     }
+
+    // -------------------------------------------------------------------------
+    // Report runner tests
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs the whole suite over a pool of connections and checks that every
+     * report is printed, and in report-number order.
+     */
+    @Test
+    void runParallelPrintsAllReportsInOrder() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Handler handler = new StreamHandler(baos, new SimpleFormatter());
+        logger.addHandler(handler);
+
+        try (ConnectionPool pool = new ConnectionPool(
+                "jdbc:mysql://localhost:3307/world?useSSL=false&allowPublicKeyRetrieval=true",
+                "app", "app123", 1, 4, Duration.ofSeconds(60), Duration.ofSeconds(30),
+                1, Duration.ofMillis(10))) {
+            ReportRunner.runParallel(pool, ReportCatalog.all(), 4);
+            assertTrue(pool.created() <= 4, "Pool should never open more than its maximum");
+        }
+
+        handler.flush();
+        String output = baos.toString(StandardCharsets.UTF_8);
+        logger.removeHandler(handler);
+
+        int last = -1;
+        for (Report r : ReportCatalog.all()) {
+            int at = output.indexOf(r.title());
+            assertTrue(at > last, "Report should be printed after the previous one: " + r.title());
+            last = at;
+        }
+    }
+
+    /**
+     * Batch mode: the whole suite goes over in one request and every result set
+     * is printed under the right title, in report order.
+     */
+    @Test
+    void runBatchPrintsAllReportsInOrder() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Handler handler = new StreamHandler(baos, new SimpleFormatter());
+        logger.addHandler(handler);
+
+        try (Connection batchCon = DriverManager.getConnection(
+                "jdbc:mysql://localhost:3307/world?useSSL=false&allowPublicKeyRetrieval=true&allowMultiQueries=true",
+                "app", "app123")) {
+            ReportRunner.runBatch(batchCon, ReportCatalog.all());
+        }
+
+        handler.flush();
+        String output = baos.toString(StandardCharsets.UTF_8);
+        logger.removeHandler(handler);
+
+        int last = -1;
+        for (Report r : ReportCatalog.all()) {
+            int at = output.indexOf(r.title());
+            assertTrue(at > last, "Report should be printed after the previous one: " + r.title());
+            last = at;
+        }
+    }
+
+    /**
+     * Streams "all cities" row by row and checks the row count and that
+     * the largest city is printed.
+     */
+    @Test
+    void streamQueryPrintsEveryRow() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Handler handler = new StreamHandler(baos, new SimpleFormatter());
+        logger.addHandler(handler);
+
+        long rows = App.streamQuery(con, "Streamed cities",
+                "SELECT Name, Population FROM city ORDER BY Population DESC",
+                "Name", "Population");
+
+        handler.flush();
+        String output = baos.toString(StandardCharsets.UTF_8);
+        logger.removeHandler(handler);
+
+        ResultSet rs = con.createStatement().executeQuery("SELECT COUNT(*) FROM city");
+        rs.next();
+        assertEquals(rs.getLong(1), rows);
+        assertTrue(output.contains("Mumbai (Bombay)"));
+    }
+
+    /**
+     * The UPDATE_TIME probe turns off MySQL's cached table statistics for its session,
+     * so a change is seen on the next probe rather than up to a day later.
+     */
+    @Test
+    void updateTimeProbeReadsLiveStatistics() throws Exception {
+        Map<String, String> prints = TableProbe.fingerprints(con, TableProbe.Method.UPDATE_TIME, List.of("city"));
+        assertTrue(prints.get("city").startsWith("rows="));
+
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT @@SESSION.information_schema_stats_expiry")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    /**
+     * A report the fetch policy streams goes through the row-by-row printer in the
+     * sequential runner, and prints the same rows as the buffered table.
+     */
+    @Test
+    void sequentialRunnerStreamsLargeReports() throws Exception {
+        Report cities = ReportCatalog.all().get(6);
+        assertEquals(FetchMode.STREAM, FetchMode.Policy.DEFAULT.choose(cities));
+        ReportTable full = App.fetchTable(con, cities);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Handler handler = new StreamHandler(baos, new SimpleFormatter());
+        logger.addHandler(handler);
+        ReportRunner.runSequential(con, List.of(cities));
+        handler.flush();
+        String output = baos.toString(StandardCharsets.UTF_8);
+        logger.removeHandler(handler);
+
+        assertTrue(output.contains(cities.title()));
+        assertTrue(output.contains(full.rows().get(full.rows().size() - 1)[0]));
+    }
+
+    /**
+     * Pages through every city in Asia and checks the pages add up to the
+     * full ranking, in the same population order, without repeats.
+     */
+    @Test
+    void pagedCitiesCoverFullRanking() throws Exception {
+        Report asia = ReportCatalog.adHoc(ReportTemplate.CITIES_BY_CONTINENT, 0, "Asia");
+        ReportTable full = App.fetchTable(con, asia.title(), asia.sql(), asia.binds(), asia.cols());
+
+        List<String[]> paged = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            ReportPager.Page page = ReportPager.fetch(con, asia, 500, token);
+            assertTrue(page.table().rows().size() <= 500);
+            paged.addAll(page.table().rows());
+            token = page.next();
+            pages++;
+        } while (token != null);
+
+        assertEquals(full.rows().size(), paged.size());
+        assertEquals((full.rows().size() + 499) / 500, pages);
+        for (int i = 0; i < paged.size(); i++) {
+            assertEquals(full.rows().get(i)[3], paged.get(i)[3]);
+        }
+    }
+
+    /**
+     * Dry-run index advice: one row per report with a plan cost, nothing created.
+     */
+    @Test
+    void indexAdvisorExplainsEveryReport() throws Exception {
+        List<Report> reports = ReportCatalog.all();
+        ReportTable advice = IndexAdvisor.advise(con, reports, false);
+
+        assertEquals(reports.size(), advice.rows().size());
+        for (String[] row : advice.rows()) {
+            assertEquals(row[1], row[2], "a dry run changes nothing");
+        }
+        assertFalse(IndexAdvisor.exists(con, new IndexAdvisor.Index("city", "Name", "District")));
+        assertTrue(IndexAdvisor.exists(con, new IndexAdvisor.Index("city", "CountryCode")));
+    }
+
+    /**
+     * One window query per template gives the same top 10 as the per-group report.
+     */
+    @Test
+    void topPerGroupMatchesSingleGroupReport() throws Exception {
+        List<ReportTable> groups = TopPerGroup.fetch(con, ReportTemplate.CITIES_BY_CONTINENT, 10);
+        Report africa = ReportCatalog.adHoc(ReportTemplate.CITIES_BY_CONTINENT, 10, "Africa");
+        ReportTable single = App.fetchTable(con, africa.title(), africa.sql(), africa.binds(), africa.cols());
+
+        ReportTable grouped = groups.stream().filter(g -> g.title().equals(africa.title())).findFirst().orElseThrow();
+        assertEquals(single.rows().size(), grouped.rows().size());
+        for (int i = 0; i < single.rows().size(); i++) {
+            assertEquals(single.rows().get(i)[3], grouped.rows().get(i)[3]);
+        }
+        assertTrue(groups.size() >= 6);
+    }
+
+    // -------------------------------------------------------------------------
+    // Snapshot engine against the SQL it replaces
+    // -------------------------------------------------------------------------
+
+    /**
+     * Every catalog report computed from the in-memory snapshot gives the same rows
+     * as its SQL query. Rows that tie on the sort column may come back in any order,
+     * and a top-N report may cut a tie at its last value differently, so rows are
+     * compared per sort value, and for the last value of a top-N report only by count.
+     */
+    @Test
+    void snapshotMatchesSqlForEveryReport() throws Exception {
+        WorldSnapshot world = WorldSnapshot.load(con);
+        for (Report r : ReportCatalog.all()) {
+            ReportTable sql = App.fetchTable(con, r.title(), r.sql(), r.binds(), r.cols());
+            ReportTable mem = world.compute(r);
+            assertEquals(sql.rows().size(), mem.rows().size(), r.title());
+
+            int sortCol = r.template().ranked()
+                    ? Arrays.asList(r.cols()).indexOf("Population")
+                    : Math.min(1, r.cols().length - 1);
+            Map<String, List<String>> sqlGroups = bySortValue(sql, sortCol);
+            Map<String, List<String>> memGroups = bySortValue(mem, sortCol);
+            assertEquals(List.copyOf(sqlGroups.keySet()), List.copyOf(memGroups.keySet()), r.title());
+
+            String last = sql.rows().isEmpty() ? null : sql.rows().get(sql.rows().size() - 1)[sortCol];
+            for (Map.Entry<String, List<String>> g : sqlGroups.entrySet()) {
+                List<String> other = memGroups.get(g.getKey());
+                if (r.limit() > 0 && g.getKey().equals(last)) {
+                    assertEquals(g.getValue().size(), other.size(), r.title());
+                } else {
+                    assertEquals(g.getValue(), other, r.title() + " at " + g.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows grouped by their sort column value, in first-seen order; each group's rows
+     * joined into one string per row and sorted, so ties compare regardless of order.
+     */
+    private static Map<String, List<String>> bySortValue(ReportTable t, int sortCol) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String[] row : t.rows()) {
+            groups.computeIfAbsent(row[sortCol], k -> new ArrayList<>()).add(String.join("|", row));
+        }
+        groups.values().forEach(rows -> rows.sort(null));
+        return groups;
+    }
 }
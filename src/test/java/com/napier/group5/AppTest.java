@@ -3,6 +3,7 @@ package com.napier.group5;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.time.Duration;
@@ -197,6 +198,13 @@ public class AppTest {
         assertEquals("|   7 |    42 |", row);
     }
 
+    @Test
+    @DisplayName("row() keeps a cell wider than its column instead of failing")
+    void rowHandlesCellWiderThanColumn() throws Exception {
+        String row = callRow(new String[]{"ABCDE"}, new int[]{3}, new boolean[]{false});
+        assertEquals("| ABCDE |", row);
+    }
+
     // -------------------------------------------------------------------------
     // connectWithRetry() failure branch test
     // -------------------------------------------------------------------------
@@ -234,4 +242,228 @@ public class AppTest {
             callPrintTable(title, headers, rows, rightAlign);
         });
     }
+
+    // -------------------------------------------------------------------------
+    // Report catalog
+    // -------------------------------------------------------------------------
+
+    @Test
+    @DisplayName("ReportCatalog lists reports 1..32 in order")
+    void catalogListsAllReportsInOrder() {
+        List<Report> reports = ReportCatalog.all();
+        assertEquals(32, reports.size());
+        for (int i = 0; i < reports.size(); i++) {
+            assertEquals(i + 1, reports.get(i).number());
+            assertTrue(reports.get(i).title().startsWith((i + 1) + ". "));
+        }
+    }
+
+    @Test
+    @DisplayName("Top-N report appends LIMIT ? and binds the limit after the filters")
+    void adHocReportBindsFiltersThenLimit() {
+        Report r = ReportCatalog.adHoc(ReportTemplate.CITIES_BY_COUNTRY, 5, "France");
+        assertTrue(r.sql().strip().endsWith("LIMIT ?"));
+        assertEquals(List.of("France", 5), r.binds());
+        assertEquals("Top 5: Cities by country (France)", r.title());
+
+        Report all = ReportCatalog.adHoc(ReportTemplate.LANGUAGE_SPEAKERS, 0, "English", "Dutch");
+        assertEquals(2, all.sql().chars().filter(ch -> ch == '?').count());
+        assertEquals(List.of("English", "Dutch"), all.binds());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ReportCatalog.adHoc(ReportTemplate.WORLD_POPULATION, 3));
+
+        // Filter values must match the template's placeholders
+        assertThrows(IllegalArgumentException.class, () -> ReportCatalog.adHoc(ReportTemplate.CITIES_BY_COUNTRY, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> ReportCatalog.adHoc(ReportTemplate.CITIES_BY_COUNTRY, 0, "France", "Spain"));
+        assertThrows(IllegalArgumentException.class, () -> ReportCatalog.adHoc(ReportTemplate.CITIES_WORLD, 0, "x"));
+        assertThrows(IllegalArgumentException.class, () -> ReportCatalog.adHoc(ReportTemplate.LANGUAGE_SPEAKERS, 0));
+    }
+
+    @Test
+    @DisplayName("REPORT_ONLY style selection keeps catalog order")
+    void selectPicksNumbersAndRanges() {
+        List<Report> picked = ReportCatalog.select(ReportCatalog.all(), "32, 1-3,23");
+        assertEquals(List.of(1, 2, 3, 23, 32), picked.stream().map(Report::number).toList());
+        assertEquals(32, ReportCatalog.select(ReportCatalog.all(), " ").size());
+        assertThrows(IllegalArgumentException.class, () -> ReportCatalog.select(ReportCatalog.all(), "5-x"));
+    }
+
+    @Test
+    @DisplayName("Batch SQL has one statement per report")
+    void batchSqlJoinsStatements() {
+        List<Report> reports = ReportCatalog.select(ReportCatalog.all(), "4,26,32");
+        String sql = ReportRunner.batchSql(reports);
+        assertEquals(3, sql.chars().filter(ch -> ch == ';').count());
+        long placeholders = sql.chars().filter(ch -> ch == '?').count();
+        long binds = reports.stream().mapToLong(r -> r.binds().size()).sum();
+        assertEquals(binds, placeholders);
+    }
+
+    @Test
+    @DisplayName("Batched population reports share one city-totals temporary table")
+    void batchSqlSharesCityTotals() {
+        List<Report> reports = ReportCatalog.select(ReportCatalog.all(), "23,24,30");
+        String sql = ReportRunner.batchSql(reports);
+        assertTrue(sql.startsWith("DROP TEMPORARY TABLE IF EXISTS " + ReportRunner.BATCH_CITY_TOTALS + ";"));
+        assertTrue(sql.contains("CREATE TEMPORARY TABLE " + ReportRunner.BATCH_CITY_TOTALS));
+        assertTrue(sql.endsWith("DROP TEMPORARY TABLE " + ReportRunner.BATCH_CITY_TOTALS + ";\n"));
+        assertEquals(2, sql.split("LEFT JOIN " + ReportRunner.BATCH_CITY_TOTALS + " ci", -1).length - 1);
+        assertFalse(sql.contains("LEFT JOIN ("), "Covered reports no longer aggregate city themselves");
+        assertEquals(6, sql.chars().filter(ch -> ch == ';').count());
+        long placeholders = sql.chars().filter(ch -> ch == '?').count();
+        long binds = reports.stream().mapToLong(r -> r.binds().size()).sum();
+        assertEquals(binds, placeholders);
+
+        String single = ReportRunner.batchSql(ReportCatalog.select(ReportCatalog.all(), "23,30"));
+        assertFalse(single.contains("TEMPORARY"), "One report alone keeps its own query");
+    }
+
+    @Test
+    @DisplayName("Top-N reports with a matching full ranking are cut from it")
+    void planDerivesTopNFromFullRanking() {
+        List<Report> reports = ReportCatalog.all();
+        ReportPlan plan = new ReportPlan(reports);
+
+        List<Integer> derived = new ArrayList<>();
+        for (int i = 0; i < reports.size(); i++) {
+            if (plan.sourceOf(i) >= 0) {
+                derived.add(reports.get(i).number());
+                Report source = reports.get(plan.sourceOf(i));
+                assertTrue(reports.get(i).params().equals(source.params())
+                        || reports.get(i).template().unfiltered() == source.template());
+            }
+        }
+        // 5 and 6 are filtered out of report 1's Continent/Region columns; 21 and 22 filter
+        // capitals on a value no full report uses and do not display it, so they keep their LIMIT query
+        assertEquals(List.of(4, 5, 6, 12, 13, 14, 15, 16, 20), derived);
+        assertEquals(9, plan.derivedCount());
+        assertEquals(0, plan.sourceOf(4));
+        assertEquals(0, plan.sourceOf(5));
+        assertTrue(plan.isShared(0));
+        // Report 1's rows are needed until report 6 (index 5) is printed, report 7's until 12
+        assertFalse(plan.doneAfter(0, 4));
+        assertTrue(plan.doneAfter(0, 5));
+        assertFalse(plan.doneAfter(6, 10));
+        assertTrue(plan.doneAfter(6, 11));
+        assertTrue(plan.doneAfter(1, 1), "Nothing is cut from report 2");
+
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            rows.add(new String[]{"r" + i});
+        }
+        ReportTable full = new ReportTable("all", new String[]{"Name"}, rows, new boolean[]{false});
+        ReportTable top = ReportPlan.prefix(full, reports.get(3));
+        assertEquals(reports.get(3).title(), top.title());
+        assertEquals(10, top.rows().size());
+        assertEquals("r9", top.rows().get(9)[0]);
+
+        // Report 5 (top 10 in Europe) cut from the world ranking by its Continent column
+        List<String[]> world = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            world.add(new String[]{"C" + i, "N" + i, i % 3 == 0 ? "europe" : "Asia", "R", "0", ""});
+        }
+        ReportTable europe = ReportPlan.prefix(
+                new ReportTable("world", reports.get(0).cols(), world, new boolean[6]), reports.get(4));
+        assertEquals(10, europe.rows().size());
+        assertEquals("C27", europe.rows().get(9)[0]);
+        assertTrue(europe.rows().stream().allMatch(r -> r[2].equals("europe")));
+        assertEquals(10, ReportPlan.prefix(new ReportTable("world", reports.get(0).cols(), world, new boolean[6]),
+                ReportCatalog.adHoc(ReportTemplate.COUNTRIES_BY_CONTINENT, 10, "EURÔPE")).rows().size());
+    }
+
+    @Test
+    @DisplayName("printTable writes the whole table to the report sink")
+    void printTableWritesToSink() {
+        StringWriter text = new StringWriter();
+        ReportSink previous = App.sink;
+        App.sink = new ReportSink.WriterSink(text, true);
+        try {
+            App.printTable("T", new String[]{"Name", "Pop"},
+                    List.<String[]>of(new String[]{"Aland", "7"}), new boolean[]{false, true});
+        } finally {
+            App.sink = previous;
+        }
+
+        String[] lines = text.toString().split(System.lineSeparator());
+        assertEquals(List.of("", "T", "+-------+-----+", "| Name  | Pop |", "+-------+-----+",
+                "| Aland |   7 |", "+-------+-----+"), List.of(lines));
+    }
+
+    @Test
+    @DisplayName("Page SQL resumes after the cursor instead of using OFFSET")
+    void pageSqlUsesKeyset() {
+        String first = ReportTemplate.CITIES_BY_CONTINENT.pageSql(false);
+        String next = ReportTemplate.CITIES_BY_CONTINENT.pageSql(true);
+        assertFalse(next.contains("OFFSET"));
+        assertTrue(first.startsWith("SELECT ci.ID AS " + ReportTemplate.PAGE_KEY + ", "));
+        assertTrue(next.contains("AND (ci.Population < ? OR (ci.Population = ? AND ci.ID < ?))"));
+        assertTrue(next.endsWith("ORDER BY ci.Population DESC, ci.ID DESC\nLIMIT ?\n"));
+        assertEquals(2, first.chars().filter(ch -> ch == '?').count());
+        assertEquals(5, next.chars().filter(ch -> ch == '?').count());
+        assertTrue(ReportTemplate.COUNTRIES_WORLD.pageSql(true).contains("WHERE (Population < ?"));
+        assertThrows(IllegalStateException.class, () -> ReportTemplate.LANGUAGE_SPEAKERS.pageSql(false));
+    }
+
+    @Test
+    @DisplayName("Page tokens round-trip the cursor and reject garbage")
+    void pageTokenRoundTrip() {
+        ReportPager.Cursor city = new ReportPager.Cursor(10500000L, 1024L);
+        assertEquals(city, ReportPager.Cursor.decode(city.encode(), true));
+        ReportPager.Cursor country = new ReportPager.Cursor(59623400L, "GBR");
+        assertEquals(country, ReportPager.Cursor.decode(country.encode(), false));
+        assertThrows(IllegalArgumentException.class, () -> ReportPager.Cursor.decode("not a token!", true));
+        assertThrows(IllegalArgumentException.class, () -> ReportPager.Cursor.decode(country.encode(), true));
+    }
+
+    @Test
+    @DisplayName("Top-N-per-group SQL partitions on the template's filter column")
+    void topPerGroupSqlPartitionsOnFilter() {
+        String sql = ReportTemplate.CITIES_BY_DISTRICT.topPerGroupSql();
+        assertTrue(sql.contains("ROW_NUMBER() OVER (PARTITION BY ci.District ORDER BY ci.Population DESC"));
+        assertFalse(sql.contains("District = ?"));
+        assertEquals(1, sql.chars().filter(ch -> ch == '?').count());
+        assertTrue(TopPerGroup.SUITE.stream().allMatch(ReportTemplate::groupable));
+        assertFalse(ReportTemplate.CITIES_WORLD.groupable());
+        assertThrows(IllegalStateException.class, ReportTemplate.POPULATION_BY_REGION::topPerGroupSql);
+    }
+
+    @Test
+    @DisplayName("Grouped rows are split into one table per group")
+    void topPerGroupSplitsRows() {
+        List<String[]> rows = List.of(
+                new String[]{"Africa", "Cairo", "6789479"},
+                new String[]{"Africa", "Kinshasa", "5064000"},
+                new String[]{"Asia", "Mumbai (Bombay)", "10500000"});
+        ReportTable ranked = new ReportTable("t", new String[]{ReportTemplate.GROUP_KEY, "Name", "Population"},
+                rows, new boolean[]{false, false, true});
+
+        List<ReportTable> groups = TopPerGroup.split(ranked, ReportTemplate.CITIES_BY_CONTINENT, 2);
+        assertEquals(2, groups.size());
+        assertEquals("Top 2: Cities by continent (Africa)", groups.get(0).title());
+        assertArrayEquals(new String[]{"Name", "Population"}, groups.get(0).headers());
+        assertArrayEquals(new boolean[]{false, true}, groups.get(0).rightAlign());
+        assertEquals(2, groups.get(0).rows().size());
+        assertArrayEquals(new String[]{"Mumbai (Bombay)", "10500000"}, groups.get(1).rows().get(0));
+    }
+
+    @Test
+    @DisplayName("Fetch mode streams only reports expected to be large")
+    void fetchModeFollowsExpectedRows() {
+        List<Report> all = ReportCatalog.all();
+        Report citiesWorld = all.get(6);      // report 7: every city
+        Report topCities = all.get(11);       // report 12: top 10 cities
+        Report worldPopulation = all.get(25); // report 26: one row
+        FetchMode.Policy auto = FetchMode.Policy.DEFAULT;
+        assertEquals(FetchMode.STREAM, auto.choose(citiesWorld));
+        assertEquals(FetchMode.BUFFERED, auto.choose(topCities));
+        assertEquals(FetchMode.BUFFERED, auto.choose(worldPopulation));
+
+        // Ten times the sample: a continent's cities no longer fit the buffered threshold
+        FetchMode.Policy scaled = FetchMode.Policy.parse("auto", 1000, 1000, 10);
+        assertEquals(FetchMode.STREAM, scaled.choose(all.get(7)));
+        assertEquals(FetchMode.CURSOR, FetchMode.Policy.parse("Cursor", 1000, 500, 1).choose(topCities));
+        assertThrows(IllegalArgumentException.class, () -> FetchMode.Policy.parse("fast", 1000, 1000, 1));
+    }
 }
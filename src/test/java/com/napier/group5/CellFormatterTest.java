@@ -0,0 +1,65 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CellFormatter}: every value must come out exactly as the
+ * NumberFormat instances from {@link App#integerFormat()} / {@link App#decimalFormat()} print it.
+ */
+public class CellFormatterTest {
+
+    private final NumberFormat intFmt = App.integerFormat();
+    private final NumberFormat decFmt = App.decimalFormat();
+
+    @Test
+    @DisplayName("Integers match the integer NumberFormat")
+    void longsMatchNumberFormat() {
+        for (long v : new long[]{0, 7, -7, 1_000_000, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(intFmt.format(v), CellFormatter.formatLong(v));
+        }
+    }
+
+    @Test
+    @DisplayName("Doubles match the decimal NumberFormat, including ties and edge cases")
+    void doublesMatchNumberFormat() {
+        double[] edge = {0.0, -0.0, -0.001, 0.004, 0.005, 0.125, 0.135, 0.165, 2.675, -1.005, 9.995, 99.995,
+                1.5, 2.0, 123456789.125, 999999999.99, 1e9, 1e15 + 0.125, 1e20, Double.MIN_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (double d : edge) {
+            assertEquals(decFmt.format(d), CellFormatter.formatDecimal(d), "value " + d);
+        }
+
+        SplittableRandom rnd = new SplittableRandom(7);
+        for (int i = 0; i < 200_000; i++) {
+            double d = (rnd.nextBoolean() ? -1 : 1) * rnd.nextDouble() * Math.pow(10, rnd.nextInt(-3, 12));
+            assertEquals(decFmt.format(d), CellFormatter.formatDecimal(d), "value " + d);
+            // Values sitting exactly on a hundredth or thousandth, as DECIMAL columns produce
+            double q = Math.round(d * 1000) / 1000.0;
+            assertEquals(decFmt.format(q), CellFormatter.formatDecimal(q), "value " + q);
+        }
+    }
+
+    @Test
+    @DisplayName("DECIMAL values match the decimal NumberFormat of their double value")
+    void bigDecimalsMatchNumberFormat() {
+        String[] edge = {"0", "0.00", "-0.50", "12.30", "0.165", "2.675", "40", "6078749450",
+                "1234567890123.45", "12345678901234567", "99999999999999.99", "0.0001", "-3.14159"};
+        for (String s : edge) {
+            BigDecimal v = new BigDecimal(s);
+            assertEquals(decFmt.format(v.doubleValue()), CellFormatter.formatDecimal(v), "value " + s);
+        }
+
+        SplittableRandom rnd = new SplittableRandom(11);
+        for (int i = 0; i < 200_000; i++) {
+            BigDecimal v = BigDecimal.valueOf(rnd.nextLong(-10_000_000_000L, 10_000_000_000L), rnd.nextInt(0, 5));
+            assertEquals(decFmt.format(v.doubleValue()), CellFormatter.formatDecimal(v), "value " + v);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CityColumns}, the off-heap city table.
+ */
+public class CityColumnsTest {
+
+    private static CityColumns sample() {
+        CityColumns.Builder b = new CityColumns.Builder();
+        // Enough rows to make every buffer grow at least once
+        for (int i = 1; i <= 3000; i++) {
+            b.add(i * 2, "City " + i, i % 7 == 0 ? -1 : i % 5, i % 2 == 0 ? "Even" : "Odd", i % 100);
+        }
+        b.add(7000, "Zürich", 1, "ZÜRICH", 100);
+        b.add(7002, null, 2, "Even", 99);
+        return b.build();
+    }
+
+    @Test
+    @DisplayName("Rows read back exactly as added")
+    void rowsRoundTrip() {
+        CityColumns c = sample();
+        assertEquals(3002, c.size());
+        assertEquals(20, c.id(9));
+        assertEquals("City 10", c.name(9));
+        assertEquals("Even", c.district(9));
+        assertEquals(10, c.population(9));
+        assertEquals(-1, c.country(6));
+        assertEquals("Zürich", c.name(3000));
+        assertEquals("", c.name(3001));
+        assertEquals(3000, c.find(7000));
+        assertTrue(c.find(7001) < 0);
+    }
+
+    @Test
+    @DisplayName("Filter, sort and sum operators")
+    void operators() {
+        CityColumns c = sample();
+        // Name and district lookups are answered by NameIndexes over the columns
+        NameIndex names = NameIndex.build(c.size(), c::name);
+        NameIndex districts = NameIndex.build(c.size(), c::district);
+        assertArrayEquals(new int[]{3000}, names.find("zürich"));
+        assertArrayEquals(new int[]{3000}, districts.find("Zürich"));
+        assertEquals(1501, districts.find("EVEN").length);
+        assertEquals(0, districts.find("Eve").length);
+
+        int[] top = c.byPopulationDesc(districts.find("even"));
+        // Even rows have even populations up to 98, except the last row (99); ties in ID order
+        assertEquals(3001, top[0]);
+        assertEquals(98, c.population(top[1]));
+        assertEquals(98, c.population(top[2]));
+        assertTrue(top[1] < top[2]);
+        for (int i = 1; i < top.length; i++) {
+            assertTrue(c.population(top[i - 1]) >= c.population(top[i]));
+        }
+
+        boolean[] has = new boolean[5];
+        long[] perCountry = c.sumByCountry(5, has);
+        long[] expected = new long[5];
+        for (int row = 0; row < c.size(); row++) {
+            if (c.country(row) >= 0) {
+                expected[c.country(row)] += c.population(row);
+            }
+        }
+        assertArrayEquals(expected, perCountry);
+        assertTrue(has[0] && has[4]);
+    }
+}
@@ -0,0 +1,104 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ColumnPlan}, using proxy metadata and result sets
+ * so no database is needed.
+ */
+public class ColumnPlanTest {
+
+    private static final String SQL = "SELECT Name, Population, Percentage FROM t";
+
+    /** Counts getColumnType calls, i.e. full plan builds. */
+    private final AtomicInteger typeLookups = new AtomicInteger();
+
+    @BeforeEach
+    void clear() {
+        ColumnPlan.clearCache();
+        typeLookups.set(0);
+    }
+
+    /** Metadata for columns with the given labels and JDBC types. */
+    private ResultSetMetaData metadata(String[] labels, int[] types) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> labels.length;
+                    case "getColumnLabel" -> labels[(int) args[0] - 1];
+                    case "getColumnType" -> {
+                        typeLookups.incrementAndGet();
+                        yield types[(int) args[0] - 1];
+                    }
+                    case "getColumnDisplaySize" -> 11;
+                    default -> null;
+                });
+    }
+
+    /** A result set positioned on one row; only positional getters are supported. */
+    private static ResultSet row(Object... values) {
+        Object[] last = {null};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (!(args != null && args[0] instanceof Integer i)) {
+                        return method.getName().equals("wasNull") ? last[0] == null : null;
+                    }
+                    last[0] = values[i - 1];
+                    return switch (method.getName()) {
+                        case "getLong" -> last[0] == null ? 0L : ((Number) last[0]).longValue();
+                        case "getBigDecimal" -> last[0];
+                        case "getObject" -> last[0];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+
+    @Test
+    @DisplayName("Columns are found by label and formatted by JDBC type")
+    void formatsByPosition() throws Exception {
+        ResultSetMetaData md = metadata(new String[]{"Percentage", "Name", "Population"},
+                new int[]{Types.DECIMAL, Types.VARCHAR, Types.BIGINT});
+        ColumnPlan plan = ColumnPlan.of(SQL, md, "Name", "Population", "Percentage");
+
+        assertEquals(2, plan.position(0));
+        assertEquals(3, plan.position(1));
+        assertEquals(1, plan.position(2));
+        assertArrayEquals(new boolean[]{false, true, true}, plan.rightAlign());
+        assertEquals(ColumnPlan.Kind.DECIMAL, plan.kind(2));
+
+        assertArrayEquals(new String[]{"Edinburgh", "450180", "0.5"},
+                plan.format(row(new BigDecimal("0.50"), "Edinburgh", 450180L)));
+        assertArrayEquals(new String[]{"", "", ""}, plan.format(row(null, null, null)));
+    }
+
+    @Test
+    @DisplayName("A cached plan is reused while the result shape stays the same")
+    void reusesPlanUntilShapeChanges() throws Exception {
+        String[] labels = {"Name", "Population"};
+        int[] types = {Types.CHAR, Types.INTEGER};
+        ColumnPlan first = ColumnPlan.of(SQL, metadata(labels, types), "Name", "Population");
+        int lookups = typeLookups.get();
+
+        assertSame(first, ColumnPlan.of(SQL, metadata(labels, types), "Name", "Population"));
+        assertEquals(lookups, typeLookups.get(), "reuse must not re-read column types");
+
+        ColumnPlan moved = ColumnPlan.of(SQL, metadata(new String[]{"Population", "Name"},
+                new int[]{Types.INTEGER, Types.CHAR}), "Name", "Population");
+        assertNotSame(first, moved);
+        assertEquals(2, moved.position(0));
+    }
+}
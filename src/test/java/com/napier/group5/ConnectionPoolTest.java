@@ -0,0 +1,249 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ConnectionPool}.
+ *
+ * A tiny fake JDBC driver (URL prefix "jdbc:fake:") hands out proxy connections,
+ * so the pool logic can be tested without a database.
+ */
+public class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:fake:world";
+
+    /** When true, every fake connection reports itself as dead in isValid(). */
+    private static final AtomicBoolean dead = new AtomicBoolean(false);
+
+    /** When true, isValid() throws an unchecked exception instead of answering. */
+    private static final AtomicBoolean pingThrows = new AtomicBoolean(false);
+
+    /** Number of rollback() calls on fake connections. */
+    private static final AtomicInteger rollbacks = new AtomicInteger();
+
+    /** Minimal driver that accepts "jdbc:fake:" URLs. */
+    private static final Driver FAKE = new Driver() {
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            AtomicBoolean closed = new AtomicBoolean(false);
+            AtomicBoolean autoCommit = new AtomicBoolean(true);
+            AtomicBoolean readOnly = new AtomicBoolean(false);
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed.set(true);
+                            yield null;
+                        }
+                        case "isClosed" -> closed.get();
+                        case "isValid" -> {
+                            if (pingThrows.get()) {
+                                throw new IllegalStateException("driver bug");
+                            }
+                            yield !dead.get() && !closed.get();
+                        }
+                        case "getAutoCommit" -> autoCommit.get();
+                        case "setAutoCommit" -> {
+                            autoCommit.set((Boolean) args[0]);
+                            yield null;
+                        }
+                        case "isReadOnly" -> readOnly.get();
+                        case "setReadOnly" -> {
+                            readOnly.set((Boolean) args[0]);
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks.incrementAndGet();
+                            yield null;
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:fake:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getLogger("fake");
+        }
+    };
+
+    @BeforeAll
+    static void registerDriver() throws SQLException {
+        DriverManager.registerDriver(FAKE);
+    }
+
+    @AfterAll
+    static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(FAKE);
+    }
+
+    /** Pool with the given bounds and short timeouts. */
+    private static ConnectionPool pool(int min, int max, Duration idle) throws SQLException {
+        return new ConnectionPool(URL, "u", "p", min, max, idle, Duration.ofMillis(200), 1, Duration.ofMillis(10));
+    }
+
+    @Test
+    @DisplayName("Closing a pooled connection returns it for reuse")
+    void connectionsAreReused() throws Exception {
+        dead.set(false);
+        try (ConnectionPool pool = pool(1, 2, Duration.ofMinutes(1))) {
+            for (int i = 0; i < 5; i++) {
+                try (Connection con = pool.acquire()) {
+                    assertEquals(1, pool.inUse());
+                    assertFalse(con.isClosed());
+                }
+            }
+            assertEquals(0, pool.inUse());
+            assertEquals(1, pool.created(), "Sequential use should only ever need one connection");
+        }
+    }
+
+    @Test
+    @DisplayName("acquire() times out when every connection is in use")
+    void acquireTimesOutAtMaxSize() throws Exception {
+        dead.set(false);
+        try (ConnectionPool pool = pool(0, 1, Duration.ofMinutes(1));
+             Connection held = pool.acquire()) {
+            assertNotNull(held);
+            assertThrows(SQLException.class, pool::acquire);
+            assertEquals(0, pool.waiting());
+        }
+    }
+
+    @Test
+    @DisplayName("Dead idle connections are replaced after the liveness check")
+    void deadConnectionsAreReplaced() throws Exception {
+        dead.set(false);
+        try (ConnectionPool pool = pool(1, 1, Duration.ofMinutes(1))) {
+            dead.set(true);
+            Thread.sleep(600); // past the validation threshold
+            dead.set(false);
+            // The first connection is still "alive" again, so it should be reused...
+            try (Connection con = pool.acquire()) {
+                assertNotNull(con);
+            }
+            dead.set(true);
+            Thread.sleep(600);
+            // ...but a connection failing isValid() must be dropped and a fresh one opened
+            try (Connection con = pool.acquire()) {
+                assertNotNull(con);
+            }
+            assertEquals(2, pool.created());
+        } finally {
+            dead.set(false);
+        }
+    }
+
+    @Test
+    @DisplayName("Idle connections above minSize are evicted")
+    void idleConnectionsAreEvicted() throws Exception {
+        dead.set(false);
+        try (ConnectionPool pool = pool(0, 2, Duration.ofMillis(50))) {
+            Connection a = pool.acquire();
+            Connection b = pool.acquire();
+            a.close();
+            b.close();
+            assertEquals(2, pool.idle());
+            Thread.sleep(300);
+            assertEquals(0, pool.idle());
+        }
+    }
+
+    @Test
+    @DisplayName("Using a connection after close() fails")
+    void returnedConnectionCannotBeUsed() throws Exception {
+        dead.set(false);
+        try (ConnectionPool pool = pool(1, 1, Duration.ofMinutes(1))) {
+            Connection con = pool.acquire();
+            con.close();
+            con.close(); // second close is harmless
+            assertTrue(con.isClosed());
+            assertThrows(SQLException.class, con::createStatement);
+        }
+    }
+
+    @Test
+    @DisplayName("Session settings changed by a borrower are reset on return")
+    void sessionStateIsResetOnRelease() throws Exception {
+        dead.set(false);
+        try (ConnectionPool pool = pool(1, 1, Duration.ofMinutes(1))) {
+            int before = rollbacks.get();
+            try (Connection con = pool.acquire()) {
+                con.setAutoCommit(false);
+                con.setReadOnly(true);
+            }
+            try (Connection con = pool.acquire()) {
+                assertTrue(con.getAutoCommit());
+                assertFalse(con.isReadOnly());
+            }
+            assertEquals(before + 1, rollbacks.get(), "The open transaction should be rolled back");
+            assertEquals(1, pool.created(), "A reset connection is reused");
+        }
+    }
+
+    @Test
+    @DisplayName("An unchecked error from the liveness check propagates and frees the slot")
+    void pingFailureKeepsCountersConsistent() throws Exception {
+        dead.set(false);
+        try (ConnectionPool pool = pool(1, 1, Duration.ofMinutes(1))) {
+            Thread.sleep(600); // past the validation threshold
+            pingThrows.set(true);
+            assertThrows(IllegalStateException.class, pool::acquire);
+            pingThrows.set(false);
+            assertEquals(0, pool.inUse());
+            try (Connection con = pool.acquire()) {
+                assertNotNull(con);
+            }
+            assertEquals(2, pool.created());
+        } finally {
+            pingThrows.set(false);
+        }
+    }
+}
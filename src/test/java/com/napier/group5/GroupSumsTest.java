@@ -0,0 +1,51 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GroupSums}, the population group-by kernel.
+ */
+public class GroupSumsTest {
+
+    @Test
+    @DisplayName("Keys are dense ordinals in first-seen order")
+    void keysAreDense() {
+        GroupSums.Keys keys = GroupSums.Keys.of(new String[]{"Asia", "Europe", "Asia", "Africa"});
+        assertArrayEquals(new String[]{"Asia", "Europe", "Africa"}, keys.names());
+        assertArrayEquals(new int[]{0, 1, 0, 2}, keys.ordinals());
+    }
+
+    @Test
+    @DisplayName("Sums and percentages match the SQL report columns")
+    void sumsAndPercentages() {
+        Report r = ReportCatalog.select(ReportCatalog.all(), "23").get(0);
+        GroupSums sums = new GroupSums(new String[]{"Asia", "Europe", "Antarctica", "Africa"});
+        sums.add(0, 1000, 300, true);
+        sums.add(0, 500, 0, false);
+        sums.add(1, 2000, 1999, true);
+        sums.add(2, 0, 0, false);
+        assertEquals(1500, sums.total(0));
+        assertEquals(300, sums.part(0));
+        assertEquals(2, sums.count(0));
+        assertEquals(0, sums.count(3));
+
+        ReportTable t = sums.table(r, false);
+        assertEquals(3, t.rows().size(), "groups without rows are left out");
+        assertArrayEquals(new String[]{"Europe", "2000", "99.95", "0.05"}, t.rows().get(0));
+        assertArrayEquals(new String[]{"Asia", "1500", "20", "80"}, t.rows().get(1));
+        assertArrayEquals(new String[]{"Antarctica", "0", "", ""}, t.rows().get(2));
+    }
+
+    @Test
+    @DisplayName("Not-in-cities is 100 minus the rounded in-cities share, as in SQL")
+    void percentNotRoundsLikeSql() {
+        // 1 / 20000 = 0.00005 rounds to 0.0001, so (1 - 0.0001) * 100 = 99.99, not 100
+        assertEquals("0.01", GroupSums.percent(1, 20000));
+        assertEquals("99.99", GroupSums.percentNot(1, 20000));
+        assertEquals("80", GroupSums.percentNot(300, 1500));
+        assertEquals("", GroupSums.percentNot(0, 0));
+    }
+}
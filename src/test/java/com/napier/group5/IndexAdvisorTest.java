@@ -0,0 +1,61 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link IndexAdvisor} that need no database.
+ */
+public class IndexAdvisorTest {
+
+    /** Abridged EXPLAIN FORMAT=JSON output of the "cities by continent" report. */
+    private static final String PLAN = """
+            {
+              "query_block": {
+                "select_id": 1,
+                "cost_info": { "query_cost": "1234.56" },
+                "ordering_operation": {
+                  "using_filesort": true,
+                  "nested_loop": [
+                    { "table": { "table_name": "ci", "access_type": "ALL", "rows_examined_per_scan": 4079 } },
+                    { "table": { "table_name": "c", "access_type": "eq_ref", "key": "PRIMARY" } },
+                    { "table": { "table_name": "<derived2>", "access_type": "ALL" } }
+                  ]
+                }
+              }
+            }
+            """;
+
+    @Test
+    @DisplayName("EXPLAIN JSON gives the cost, full scans and filesort")
+    void parsesPlan() {
+        IndexAdvisor.Plan plan = IndexAdvisor.parse(PLAN);
+        assertEquals(1234.56, plan.cost(), 1e-9);
+        assertEquals(List.of("ci"), plan.fullScans());
+        assertTrue(plan.filesort());
+        assertFalse(plan.temporary());
+        assertEquals("full scan ci; filesort", plan.issues());
+        assertEquals("-", IndexAdvisor.parse("{\"cost_info\": {\"query_cost\": \"1.00\"}}").issues());
+    }
+
+    @Test
+    @DisplayName("Every filtered or sorted template has an index recommendation")
+    void recommendsIndexes() {
+        assertTrue(IndexAdvisor.recommended(ReportTemplate.CITIES_BY_CONTINENT)
+                .contains(new IndexAdvisor.Index("city", "CountryCode", "Population")));
+        assertTrue(IndexAdvisor.recommended(ReportTemplate.COUNTRIES_BY_CONTINENT)
+                .contains(new IndexAdvisor.Index("country", "Continent", "Population")));
+        for (ReportTemplate t : ReportTemplate.values()) {
+            assertTrue(t == ReportTemplate.CAPITALS_WORLD || !IndexAdvisor.recommended(t).isEmpty(), t.name());
+        }
+
+        IndexAdvisor.Index ix = new IndexAdvisor.Index("city", "CountryCode", "Population");
+        assertEquals("idx_city_countrycode_population", ix.name());
+        assertEquals("CREATE INDEX `idx_city_countrycode_population` ON `city` (`CountryCode`, `Population`)",
+                ix.ddl());
+    }
+}
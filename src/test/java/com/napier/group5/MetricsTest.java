@@ -0,0 +1,90 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Metrics}: histogram accuracy and the summary output.
+ */
+public class MetricsTest {
+
+    @Test
+    @DisplayName("Histogram percentiles stay within the bucket precision")
+    void histogramPercentiles() {
+        Metrics.Histogram h = new Metrics.Histogram();
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1000);
+        }
+        assertEquals(100_000, h.count());
+        assertEquals(100_000_000L, h.max());
+        assertEquals(50_000_000, h.percentile(0.5), 50_000_000 * 0.07);
+        assertEquals(99_000_000, h.percentile(0.99), 99_000_000 * 0.07);
+        assertEquals(h.max(), h.percentile(1.0));
+
+        // Every value lies in a bucket whose upper bound is at most ~6% above it
+        for (long v : new long[]{0, 1, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE / 2}) {
+            long top = Metrics.Histogram.upperBound(Metrics.Histogram.bucket(v));
+            assertTrue(top >= v && top <= v + v / 16 + 1, v + " -> " + top);
+        }
+    }
+
+    @Test
+    @DisplayName("Summary has a row per report and per-run averages")
+    void summaryAndJson() {
+        Metrics m = new Metrics();
+        for (int run = 0; run < 2; run++) {
+            m.record("Cities", Metrics.Phase.EXECUTE, 2_000_000);
+            m.record("Cities", Metrics.Phase.FETCH, 4_000_000);
+            m.rows("Cities", 10);
+            m.bytes("Cities", 500);
+        }
+        m.record(Metrics.RUN, Metrics.Phase.CONNECT, 1_000_000);
+
+        ReportTable t = m.summary();
+        assertEquals(2, t.rows().size());
+        String[] cities = t.rows().get(0);
+        assertEquals("Cities", cities[0]);
+        assertEquals("2", cities[1]);
+        assertEquals("10", cities[2]);
+        assertEquals("500", cities[3]);
+        assertEquals("", cities[4], "no connect samples for the report");
+        assertTrue(cities[5].startsWith("2"), cities[5]);
+
+        String json = m.toJson();
+        assertTrue(json.contains("\"Cities\":{\"rows\":20,\"bytes\":1000"), json);
+        assertTrue(json.contains("\"(run)\":"), json);
+        assertTrue(json.contains("\"execute\":{\"count\":2"), json);
+    }
+
+    @Test
+    @DisplayName("TimedSink passes lines through and counts characters")
+    void timedSinkCounts() {
+        List<String> lines = new ArrayList<>();
+        ReportSink target = new ReportSink() {
+            @Override
+            public void line(String line) {
+                lines.add(line);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Metrics.TimedSink sink = new Metrics.TimedSink(target);
+        sink.line("abc");
+        sink.line("");
+        sink.close();
+        assertEquals(List.of("abc", ""), lines);
+        assertEquals(3 + 2L * System.lineSeparator().length(), sink.chars());
+        assertTrue(sink.nanos() >= 0);
+    }
+}
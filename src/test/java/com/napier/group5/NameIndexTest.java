@@ -0,0 +1,47 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link NameIndex} and the snapshot lookups built on it.
+ */
+public class NameIndexTest {
+
+    private static final String[] NAMES = {"London", "Londrina", "london", "Leeds", null, "Łódź", "Amsterdam"};
+
+    @Test
+    @DisplayName("Exact, case-insensitive and prefix lookups")
+    void lookups() {
+        NameIndex index = NameIndex.build(NAMES.length, row -> NAMES[row]);
+        assertEquals(NAMES.length, index.size());
+        assertArrayEquals(new int[]{0, 2}, index.find("LONDON"));
+        assertArrayEquals(new int[]{2}, index.exact("london"));
+        assertArrayEquals(new int[]{5}, index.find("łÓDŹ"));
+        assertArrayEquals(new int[0], index.find("Lond"));
+        assertArrayEquals(new int[]{0, 2, 1}, index.prefix("lond", 0));
+        assertArrayEquals(new int[]{0, 2}, index.prefix("Lond", 2));
+        assertEquals(List.of("Leeds", "London", "Londrina"), index.suggest("l", 3));
+        assertEquals(List.of("Amsterdam"), index.suggest("a", 10));
+        assertEquals(List.of(), index.suggest("x", 10));
+
+        // Accents are ignored like utf8mb4_0900_ai_ci, except by exact()
+        NameIndex accents = NameIndex.build(2, row -> row == 0 ? "São Paulo" : "Sao Paulo");
+        assertArrayEquals(new int[]{0, 1}, accents.find("SAO PAULO"));
+        assertArrayEquals(new int[]{1}, accents.exact("Sao Paulo"));
+        assertEquals(List.of("São Paulo"), accents.suggest("sã", 5));
+    }
+
+    @Test
+    @DisplayName("Snapshot answers name lookups from its indexes")
+    void snapshotLookups() {
+        WorldSnapshot world = WorldSnapshotTest.tinyWorld();
+        assertArrayEquals(new int[]{1}, world.find(WorldSnapshot.Lookup.COUNTRY, "BLAND"));
+        assertArrayEquals(new int[]{0, 2}, world.find(WorldSnapshot.Lookup.DISTRICT, "limburg"));
+        assertEquals(List.of("Acity", "Atown"), world.suggest(WorldSnapshot.Lookup.CITY, "a", 5));
+    }
+}
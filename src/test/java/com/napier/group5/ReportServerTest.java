@@ -0,0 +1,83 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ReportServer}. The pool points at a URL that always fails,
+ * so only the endpoints that need no database are exercised end to end.
+ */
+public class ReportServerTest {
+
+    private static ConnectionPool pool;
+    private static ReportServer server;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void start() throws Exception {
+        pool = new ConnectionPool("test://fail", "u", "p", 0, 1,
+                Duration.ofSeconds(60), Duration.ofSeconds(1), 1, Duration.ofMillis(1));
+        server = new ReportServer(pool, ReportCatalog.all(), new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+        pool.close();
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("Health, catalog and error responses")
+    void endpoints() throws Exception {
+        assertEquals("ok\n", get("/health").body());
+
+        HttpResponse<String> catalog = get("/reports");
+        assertEquals(200, catalog.statusCode());
+        assertTrue(catalog.body().contains("\"number\":32"));
+        assertTrue(catalog.body().contains("\"template\":\"cities_by_district\""));
+
+        assertEquals(404, get("/reports/99").statusCode());
+        assertEquals(404, get("/templates/nope").statusCode());
+        assertEquals(400, get("/reports/x").statusCode());
+        assertEquals(400, get("/templates/language_speakers?limit=ten").statusCode());
+        assertEquals(400, get("/templates/cities_by_country").statusCode());
+        assertEquals(400, get("/templates/cities_by_country?p=France&p=Spain").statusCode());
+        // The database is unreachable: the query fails, the server does not
+        assertEquals(500, get("/reports/1").statusCode());
+    }
+
+    @Test
+    @DisplayName("Tables render as text and JSON")
+    void rendering() {
+        ReportTable t = new ReportTable("Say \"hi\"", new String[]{"Name", "Population"},
+                List.of(new String[]{"Aland", "7"}, new String[]{"Nowhere", ""}), new boolean[]{false, true});
+
+        assertEquals("{\"title\":\"Say \\\"hi\\\"\",\"columns\":[\"Name\",\"Population\"],"
+                + "\"rows\":[[\"Aland\",7],[\"Nowhere\",null]],\"next\":\"abc\"}\n", ReportServer.tableJson(t, "abc"));
+        assertTrue(ReportServer.render(t).contains("| Aland   |          7 |")
+                || ReportServer.render(t).contains("│ Aland   │          7 │"));
+
+        Map<String, List<String>> q = ReportServer.query("p=North+America&p=Asia&limit=5&x");
+        assertEquals(List.of("North America", "Asia"), q.get("p"));
+        assertEquals(List.of(""), q.get("x"));
+    }
+}
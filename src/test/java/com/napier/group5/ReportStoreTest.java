@@ -0,0 +1,61 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ReportStore}, using a temporary state directory and
+ * fingerprints set by hand, so no database is needed.
+ */
+public class ReportStoreTest {
+
+    private static Report report(int number) {
+        return ReportCatalog.select(ReportCatalog.all(), Integer.toString(number)).get(0);
+    }
+
+    @Test
+    @DisplayName("Each report depends only on the tables it reads")
+    void inputsFollowTheSql() {
+        assertEquals(Set.of("country"), ReportStore.inputs(report(1)));
+        assertEquals(Set.of("city", "country"), ReportStore.inputs(report(7)));
+        assertEquals(Set.of("country", "countrylanguage"), ReportStore.inputs(report(32)));
+    }
+
+    @Test
+    @DisplayName("A stored report is replayed until one of its tables changes")
+    void replayUntilInputsChange(@TempDir Path dir) {
+        Report countries = report(1);
+        Report cities = report(7);
+        ReportTable table = new ReportTable("Stored title",
+                new String[]{"Name", "Note"},
+                List.of(new String[]{"Tab\there", "Line\nbreak \\ slash"}, new String[]{"", "x"}),
+                new boolean[]{false, true});
+
+        ReportStore store = new ReportStore(dir, TableProbe.Method.CHECKSUM);
+        store.use(Map.of("country", "checksum=1", "city", "checksum=2"));
+        assertNull(store.replay(countries), "nothing stored yet");
+        store.save(countries, table);
+        store.save(cities, table);
+
+        // A new run: city changed, country did not
+        ReportStore next = new ReportStore(dir, TableProbe.Method.CHECKSUM);
+        next.use(Map.of("country", "checksum=1", "city", "checksum=3"));
+        ReportTable replayed = next.replay(countries);
+        assertNotNull(replayed);
+        assertEquals(countries.title(), replayed.title());
+        assertArrayEquals(table.headers(), replayed.headers());
+        assertArrayEquals(table.rightAlign(), replayed.rightAlign());
+        assertEquals(2, replayed.rows().size());
+        assertArrayEquals(table.rows().get(0), replayed.rows().get(0));
+        assertArrayEquals(table.rows().get(1), replayed.rows().get(1));
+        assertNull(next.replay(cities), "city changed since the report was stored");
+    }
+}
@@ -0,0 +1,101 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ResultCache} and the SQL table extraction in {@link TableProbe}.
+ * Loaders are plain lambdas, so no database is needed.
+ */
+public class ResultCacheTest {
+
+    private static final String COUNTRIES = "SELECT Code FROM country ORDER BY Population DESC";
+    private static final String CITIES = "SELECT ci.Name FROM city ci LEFT JOIN country c ON ci.CountryCode = c.Code";
+
+    /** A one-row table; the loader counts how often it runs. */
+    private static ReportTable table(String title) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"X"});
+        return new ReportTable(title, new String[]{"Code"}, rows, new boolean[]{false});
+    }
+
+    @Test
+    @DisplayName("Second lookup is a hit, even with different whitespace and title")
+    void hitAfterMiss() throws Exception {
+        ResultCache cache = new ResultCache(8, Duration.ofMinutes(1), TableProbe.Method.CHECKSUM);
+        int[] loads = {0};
+
+        cache.get(ResultCache.key(COUNTRIES, List.of(), "Code"), "A", () -> {
+            loads[0]++;
+            return table("A");
+        });
+        ReportTable again = cache.get(ResultCache.key("  SELECT Code\n FROM country\n ORDER BY Population DESC\n",
+                List.of(), "Code"), "B", () -> {
+            loads[0]++;
+            return table("B");
+        });
+
+        assertEquals(1, loads[0]);
+        assertEquals("B", again.title(), "Title comes from the caller, not the cached copy");
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    @DisplayName("Different bind parameters are different entries")
+    void paramsArePartOfKey() {
+        assertNotEquals(ResultCache.key(COUNTRIES, List.of("Asia"), "Code"),
+                ResultCache.key(COUNTRIES, List.of("Europe"), "Code"));
+    }
+
+    @Test
+    @DisplayName("Least recently used entry is evicted when full")
+    void lruEviction() throws Exception {
+        ResultCache cache = new ResultCache(2, Duration.ofMinutes(1), TableProbe.Method.CHECKSUM);
+        for (String sql : List.of("SELECT 1 FROM country", "SELECT 2 FROM country", "SELECT 3 FROM country")) {
+            cache.get(ResultCache.key(sql, List.of(), "Code"), sql, () -> table(sql));
+        }
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    @DisplayName("Expired entries are reloaded")
+    void ttlExpiry() throws Exception {
+        ResultCache cache = new ResultCache(8, Duration.ZERO, TableProbe.Method.CHECKSUM);
+        ResultCache.Key k = ResultCache.key(COUNTRIES, List.of(), "Code");
+        cache.get(k, "A", () -> table("A"));
+        Thread.sleep(2);
+        cache.get(k, "A", () -> table("A"));
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    @DisplayName("invalidate(table) drops only entries that read that table")
+    void invalidateByTable() throws Exception {
+        ResultCache cache = new ResultCache(8, Duration.ofMinutes(1), TableProbe.Method.CHECKSUM);
+        cache.get(ResultCache.key(COUNTRIES, List.of(), "Code"), "A", () -> table("A"));
+        cache.get(ResultCache.key(CITIES, List.of(), "Name"), "B", () -> table("B"));
+
+        assertEquals(1, cache.invalidate("CITY"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.invalidate("country"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("tablesIn() finds every table after FROM and JOIN")
+    void tablesInSql() {
+        assertEquals(Set.of("city", "country"), TableProbe.tablesIn(CITIES));
+        assertEquals(Set.of("country", "countrylanguage"), TableProbe.tablesIn(
+                "SELECT 1 FROM countrylanguage cl JOIN country c ON 1=1 WHERE x > (SELECT SUM(Population) FROM country)"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link WorldGenerator}: the generated rows are collected in memory,
+ * no database is needed.
+ */
+public class WorldGeneratorTest {
+
+    /** Generated rows per table. */
+    private static Map<WorldGenerator.Table, List<Object[]>> generate(int scale, long seed) throws Exception {
+        Map<WorldGenerator.Table, List<Object[]>> rows = new HashMap<>();
+        List<WorldGenerator.Table> order = new ArrayList<>();
+        new WorldGenerator(scale, seed).generate((table, values) -> {
+            if (order.isEmpty() || order.get(order.size() - 1) != table) {
+                order.add(table);
+            }
+            assertEquals(table.insertSql().chars().filter(ch -> ch == '?').count(), values.length);
+            rows.computeIfAbsent(table, t -> new ArrayList<>()).add(values);
+        });
+        assertEquals(List.of(WorldGenerator.Table.values()), order, "tables are generated in load order");
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Generated tables are consistent with each other and the schema")
+    void generatedDataIsConsistent() throws Exception {
+        Map<WorldGenerator.Table, List<Object[]>> rows = generate(1, 42);
+        List<Object[]> countries = rows.get(WorldGenerator.Table.COUNTRY);
+        List<Object[]> cities = rows.get(WorldGenerator.Table.CITY);
+        List<Object[]> languages = rows.get(WorldGenerator.Table.COUNTRYLANGUAGE);
+
+        assertEquals(WorldGenerator.SAMPLE_COUNTRIES, countries.size());
+        assertEquals(WorldGenerator.SAMPLE_CITIES, cities.size());
+
+        Map<Integer, String> cityCountry = new HashMap<>();
+        for (Object[] c : cities) {
+            assertNull(cityCountry.put((Integer) c[0], (String) c[2]), "city IDs are unique");
+            assertTrue(((String) c[1]).length() <= 35 && ((String) c[3]).length() <= 20);
+        }
+        Set<String> codes = new HashSet<>();
+        for (Object[] c : countries) {
+            assertTrue(codes.add((String) c[0]), "country codes are unique");
+            assertTrue(((String) c[0]).matches("[A-Z]{3}"));
+            if (c[13] != null) {
+                assertEquals(c[0], cityCountry.get((Integer) c[13]), "capital is a city of its country");
+            }
+        }
+        assertTrue(codes.containsAll(cityCountry.values()));
+
+        Set<String> languageKeys = new HashSet<>();
+        Map<String, BigDecimal> percent = new HashMap<>();
+        for (Object[] l : languages) {
+            assertTrue(codes.contains((String) l[0]));
+            assertTrue(languageKeys.add(l[0] + "/" + l[1]), "one row per country and language");
+            percent.merge((String) l[0], (BigDecimal) l[3], BigDecimal::add);
+        }
+        percent.values().forEach(p -> assertTrue(p.compareTo(BigDecimal.valueOf(100)) <= 0));
+    }
+
+    @Test
+    @DisplayName("Catalog filter values exist and the data is skewed")
+    void catalogFiltersMatchAndSizesAreSkewed() throws Exception {
+        Map<WorldGenerator.Table, List<Object[]>> rows = generate(1, 7);
+        List<Object[]> cities = rows.get(WorldGenerator.Table.CITY);
+
+        assertTrue(rows.get(WorldGenerator.Table.COUNTRY).stream().anyMatch(c -> c[1].equals("Argentina")));
+        assertTrue(cities.stream().anyMatch(c -> c[1].equals("London")));
+        assertTrue(cities.stream().anyMatch(c -> c[3].equals("Limburg")));
+        assertTrue(rows.get(WorldGenerator.Table.COUNTRYLANGUAGE).stream().anyMatch(l -> l[1].equals("Hindi")));
+
+        int[] pop = cities.stream().mapToInt(c -> (Integer) c[4]).sorted().toArray();
+        assertTrue(pop[pop.length - 1] > 20L * pop[pop.length / 2], "largest city dwarfs the median");
+    }
+
+    @Test
+    @DisplayName("Scale multiplies cities; the same seed gives the same data")
+    void scaleAndSeed() throws Exception {
+        WorldGenerator tenX = new WorldGenerator(10, 1);
+        assertEquals(10 * WorldGenerator.SAMPLE_CITIES, tenX.cityCount());
+        assertEquals(Math.round(WorldGenerator.SAMPLE_COUNTRIES * Math.sqrt(10)), tenX.countryCount());
+        assertEquals(WorldGenerator.MAX_COUNTRIES, new WorldGenerator(10_000, 1).countryCount());
+
+        List<Object[]> a = generate(1, 3).get(WorldGenerator.Table.CITY);
+        List<Object[]> b = generate(1, 3).get(WorldGenerator.Table.CITY);
+        for (int i = 0; i < a.size(); i++) {
+            assertArrayEquals(a.get(i), b.get(i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new WorldGenerator(0, 1));
+    }
+}
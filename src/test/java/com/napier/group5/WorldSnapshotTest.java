@@ -0,0 +1,153 @@
+package com.napier.group5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link WorldSnapshot}: reports computed in memory from a tiny,
+ * hand-made world. No database needed.
+ */
+public class WorldSnapshotTest {
+
+    /**
+     * Three countries, three cities, two language rows:
+     *  - AAA (Asia)       pop 1000, capital 1, cities 1 (300, Limburg) and 2 (100)
+     *  - BBB (Europe)     pop  500, capital 3, city 3 (200, Limburg)
+     *  - CCC (Antarctica) pop    0, no capital, no cities
+     */
+    static WorldSnapshot tinyWorld() {
+        return new WorldSnapshot(
+                new String[]{"AAA", "BBB", "CCC"},
+                new String[]{"Aland", "Bland", "Cland"},
+                new String[]{"Asia", "Europe", "Antarctica"},
+                new String[]{"Eastern Asia", "Western Europe", "Antarctica"},
+                new int[]{1000, 500, 0},
+                new int[]{1, 3, 0},
+                new int[]{1, 2, 3},
+                new String[]{"Acity", "Atown", "Bcity"},
+                new int[]{0, 0, 1},
+                new String[]{"Limburg", "North", "Limburg"},
+                new int[]{300, 100, 200},
+                new int[]{0, 1},
+                new String[]{"Chinese", "English"},
+                new int[]{500, 100});
+    }
+
+    /** Report n from the catalog (1-based). */
+    private static Report report(int n) {
+        return ReportCatalog.all().get(n - 1);
+    }
+
+    @Test
+    @DisplayName("Country report is sorted by population and shows capital IDs")
+    void countriesSortedByPopulation() {
+        ReportTable t = tinyWorld().compute(report(1));
+        assertEquals(3, t.rows().size());
+        assertArrayEquals(new String[]{"AAA", "Aland", "Asia", "Eastern Asia", "1000", "1"}, t.rows().get(0));
+        assertEquals("", t.rows().get(2)[5], "NULL capital prints as an empty cell");
+    }
+
+    @Test
+    @DisplayName("City filters by continent of the city's country")
+    void citiesFilteredByContinent() {
+        ReportTable t = tinyWorld().compute(report(2)); // countries in Asia
+        assertEquals(1, t.rows().size());
+
+        ReportTable cities = tinyWorld().compute(report(7));
+        assertEquals(List.of("Acity", "Bcity", "Atown"),
+                cities.rows().stream().map(r -> r[0]).toList());
+    }
+
+    @Test
+    @DisplayName("Capital report prints the owning country, even when the city's CountryCode differs")
+    void capitalsPrintOwningCountry() {
+        // CCC's capital is AAA's Atown; BBB's capital Bcity has a CountryCode with no country row
+        WorldSnapshot world = new WorldSnapshot(
+                new String[]{"AAA", "BBB", "CCC"},
+                new String[]{"Aland", "Bland", "Cland"},
+                new String[]{"Asia", "Europe", "Antarctica"},
+                new String[]{"Eastern Asia", "Western Europe", "Antarctica"},
+                new int[]{1000, 500, 0},
+                new int[]{1, 3, 2},
+                new int[]{1, 2, 3},
+                new String[]{"Acity", "Atown", "Bcity"},
+                new int[]{0, 0, -1},
+                new String[]{"Limburg", "North", "Limburg"},
+                new int[]{300, 100, 200},
+                new int[]{0, 1},
+                new String[]{"Chinese", "English"},
+                new int[]{500, 100});
+
+        ReportTable t = world.compute(report(17));
+        assertEquals(3, t.rows().size());
+        assertArrayEquals(new String[]{"Acity", "Aland", "300"}, t.rows().get(0));
+        assertArrayEquals(new String[]{"Bcity", "Bland", "200"}, t.rows().get(1));
+        assertArrayEquals(new String[]{"Atown", "Cland", "100"}, t.rows().get(2));
+    }
+
+    @Test
+    @DisplayName("Continent population report computes in/not-in-cities percentages")
+    void populationByContinent() {
+        ReportTable t = tinyWorld().compute(report(23));
+        assertArrayEquals(new String[]{"Asia", "1000", "40", "60"}, t.rows().get(0));
+        assertArrayEquals(new String[]{"Europe", "500", "40", "60"}, t.rows().get(1));
+        // Zero population and no cities -> NULL percentages in SQL
+        assertArrayEquals(new String[]{"Antarctica", "0", "", ""}, t.rows().get(2));
+    }
+
+    @Test
+    @DisplayName("District population counts each country once in the denominator")
+    void populationByDistrict() {
+        ReportTable t = tinyWorld().compute(report(30));
+        assertArrayEquals(new String[]{"Limburg", "500", "33.33", "66.67"}, t.rows().get(0));
+    }
+
+    @Test
+    @DisplayName("Language report rounds speakers and world share")
+    void languages() {
+        ReportTable t = tinyWorld().compute(report(32));
+        assertArrayEquals(new String[]{"Chinese", "500", "33.33"}, t.rows().get(0));
+        assertArrayEquals(new String[]{"English", "50", "3.33"}, t.rows().get(1));
+    }
+
+    @Test
+    @DisplayName("City totals are shared only when a run has several reports that need them")
+    void cityTotalsSharedAcrossPopulationReports() {
+        ReportRunner.CityTotals all = new ReportRunner.CityTotals(ReportCatalog.all());
+        assertEquals(List.of(23, 24, 25, 27, 28, 29), ReportCatalog.all().stream()
+                .filter(all::covers).map(Report::number).toList());
+
+        ReportRunner.CityTotals single = new ReportRunner.CityTotals(List.of(report(23), report(30)));
+        assertFalse(single.covers(report(23)), "One report alone keeps its own query");
+    }
+
+    @Test
+    @DisplayName("A saved and mapped snapshot answers every report the same way")
+    void snapshotFileRoundTrip(@TempDir Path dir) throws IOException {
+        WorldSnapshot world = tinyWorld();
+        Path file = dir.resolve("world.snapshot");
+        world.save(file);
+        WorldSnapshot mapped = WorldSnapshot.open(file);
+
+        assertEquals(world.cityCount(), mapped.cityCount());
+        for (Report r : ReportCatalog.all()) {
+            ReportTable a = world.compute(r);
+            ReportTable b = mapped.compute(r);
+            assertEquals(a.rows().size(), b.rows().size(), r.title());
+            for (int i = 0; i < a.rows().size(); i++) {
+                assertArrayEquals(a.rows().get(i), b.rows().get(i), r.title());
+            }
+        }
+
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> WorldSnapshot.open(file));
+    }
+}